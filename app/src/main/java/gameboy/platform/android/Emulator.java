@@ -21,6 +21,10 @@
  */
 package gameboy.platform.android;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
 import org.cafeboy.mario.GameView;
 
 import gameboy.core.Cartridge;
@@ -39,6 +43,14 @@ public class Emulator implements Runnable {
 	private GameBoy gameboy;
 	private GameView view;
 	
+	/*
+	 * Suspended State (restored in the background while the surface is created)
+	 */
+	private String cartridgeName;
+	private File stateFile;
+	private boolean loaded;
+	private boolean visible;
+	
 	private Thread thread;
 	private volatile boolean quit;
 
@@ -56,8 +68,6 @@ public class Emulator implements Runnable {
 
 		view.setOnTouchListener(joypad);
 		gameboy = new GameBoy(video, sound, joypad, store, clock);
-		
-		thread = new Thread(this);
 	}
 	
 	public void setFrameSkip(int frameSkip)
@@ -79,19 +89,50 @@ public class Emulator implements Runnable {
 	{
 		gameboy.save(cartridgeName);
 	}
+	
+	public void resume(String cartridgeName, File stateFile)
+	{
+		this.cartridgeName = cartridgeName;
+		this.stateFile = stateFile;
+		
+		start();
+	}
+	
+	public void suspend()
+	{
+		stop();
+		
+		if (loaded) {
+			saveState();
+			save(cartridgeName);
+		}
+	}
+	
+	public synchronized void setVisible(boolean visible)
+	{
+		this.visible = visible;
+		
+		notifyAll();
+	}
 
 	public void start()
 	{
-		if (!thread.isAlive()) {
+		if (thread == null || !thread.isAlive()) {
 			quit = false;
+			thread = new Thread(this);
 			thread.start();
 		}
 	}
 	
 	public void stop()
 	{
-		if (thread.isAlive()) {
+		if (thread != null && thread.isAlive()) {
 			quit = true;
+			
+			synchronized (this) {
+				notifyAll();
+			}
+			
 			try {
 				thread.join();
 			}
@@ -102,7 +143,11 @@ public class Emulator implements Runnable {
 
 	public void run()
 	{
-		gameboy.reset();
+		if (!loaded)
+			restore();
+		
+		if (!waitVisible())
+			return;
 
 		gameboy.start();
 		
@@ -112,5 +157,102 @@ public class Emulator implements Runnable {
 
 		gameboy.stop();
 	}
+	
+	private synchronized boolean waitVisible()
+	{
+		while (!visible && !quit) {
+			try {
+				wait();
+			}
+			catch (InterruptedException exception) {
+				return false;
+			}
+		}
+		
+		return !quit;
+	}
+	
+	private void restore()
+	{
+		load(cartridgeName);
+		loaded = true;
+		
+		// a suspended machine goes on where it stopped, the boot is only done once
+		if (loadState())
+			return;
+		
+		println("");
+		println("Title: " + getCartridge().getTitle() + " Type: " + getCartridge().getDescription() + " ROM: " + (getCartridge().getROMSize() >> 10) + "KB RAM: " + (getCartridge().getRAMSize() >> 10) + "KB");
+
+		if (!getCartridge().verify()) {
+			println("");
+			println("WARNING: Cartridge checksum verification failed");
+		}
+		
+		gameboy.reset();
+	}
+	
+	private boolean loadState()
+	{
+		if (stateFile == null || !stateFile.exists())
+			return false;
+		
+		try {
+			RandomAccessFile file = new RandomAccessFile(stateFile, "r");
+			
+			try {
+				gameboy.loadState(file.getChannel());
+				return true;
+			}
+			finally {
+				file.close();
+			}
+		}
+		catch (IOException exception) {
+			return false;
+		}
+		catch (RuntimeException exception) {
+			// a stale or broken state is checked before it is applied, a cold boot follows
+			println("WARNING: " + exception.getMessage());
+			return false;
+		}
+	}
+	
+	private void saveState()
+	{
+		if (stateFile == null)
+			return;
+		
+		// written aside and renamed so that a kill mid-write keeps the last state
+		File temporary = new File(stateFile.getPath() + ".tmp");
+		
+		try {
+			RandomAccessFile file = new RandomAccessFile(temporary, "rw");
+			
+			try {
+				gameboy.saveState(file.getChannel());
+			}
+			finally {
+				file.close();
+			}
+			
+			if (!temporary.renameTo(stateFile))
+				throw new IOException("Could not rename " + temporary.getPath());
+		}
+		catch (IOException exception) {
+			// this runs on the UI thread while suspending, a failed save keeps the last state
+			println("WARNING: Could not save state: " + exception.getMessage());
+			temporary.delete();
+		}
+		catch (RuntimeException exception) {
+			println("WARNING: " + exception.getMessage());
+			temporary.delete();
+		}
+	}
+	
+	private static void println(String message)
+	{
+		System.out.println(message);
+	}
 
 }
@@ -8,6 +8,8 @@ import android.view.KeyEvent;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 
+import java.io.File;
+
 import gameboy.platform.android.Emulator;
 
 public class GameView extends SurfaceView implements SurfaceHolder.Callback {
@@ -48,11 +50,20 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
         } else {
             this.buttons = null;
         }
+
+        // restore the suspended machine while the surface is being created
+        emulator = new Emulator(this);
+        emulator.resume(CARTRIDGE_NAME, new File(context.getFilesDir(), STATE_NAME));
     }
 
 
     private static final String CARTRIDGE_NAME = "/assets/chipthechick.gb";
 
+    /**
+     * machine state kept across surface teardown and process restarts
+     */
+    private static final String STATE_NAME = "suspend.state";
+
     private static final int FRAME_SKIP = 5;
 
     private Emulator emulator;
@@ -92,30 +103,17 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
         screen_height = getHeight();
 
 
-        emulator = new Emulator(this);
-
         //emulator.setFrameSkip(FRAME_SKIP);
 
-        emulator.load(CARTRIDGE_NAME);
-        println("");
-        println("Title: " + emulator.getCartridge().getTitle() + " Type: " + emulator.getCartridge().getDescription() + " ROM: " + (emulator.getCartridge().getROMSize() >> 10) + "KB RAM: " + (emulator.getCartridge().getRAMSize() >> 10) + "KB");
-
-        if (!emulator.getCartridge().verify()) {
-            println("");
-            println("WARNING: Cartridge checksum verification failed");
-        }
+        // the emulator thread was stopped when the surface went away
         emulator.start();
-
-    }
-
-    private static void println(String message) {
-        System.out.println(message);
+        emulator.setVisible(true);
     }
 
     @Override
     public void surfaceDestroyed(SurfaceHolder holder) {
-        emulator.stop();
-        emulator = null;
+        emulator.setVisible(false);
+        emulator.suspend();
     }
 
     @Override
@@ -0,0 +1,96 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Bank Switching Benchmark
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gameboy.core.GameBoy;
+import gameboy.core.cartridge.CartridgeFactory;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class BankBenchmark {
+	/*
+	 * ROM Banks (512KB)
+	 */
+	private static final int ROM_SIZE = 4;
+	private static final int BANKS = 32;
+	
+	@Param({ "MBC1", "MBC3", "MBC5" })
+	public String controller;
+	
+	private GameBoy gameboy;
+	
+	@Setup
+	public void setup()
+	{
+		int type;
+		
+		if (controller.equals("MBC1"))
+			type = CartridgeFactory.TYPE_MBC1;
+		else if (controller.equals("MBC3"))
+			type = CartridgeFactory.TYPE_MBC3;
+		else
+			type = CartridgeFactory.TYPE_MBC5;
+		
+		gameboy = new Machine(Machine.createROM(type, ROM_SIZE, 0, new int[0]), false).getGameBoy();
+		
+		for (int bank = 1; bank < BANKS; bank++) {
+			gameboy.write(0x2000, bank);
+			
+			if (gameboy.read(0x4000) != bank)
+				throw new RuntimeException("Bank " + bank + " is not mapped");
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BANKS - 1)
+	public int switchBank()
+	{
+		int sum = 0;
+		
+		// select each bank and read from it, as a banked routine call does
+		for (int bank = 1; bank < BANKS; bank++) {
+			gameboy.write(0x2000, bank);
+			sum += gameboy.read(0x4000);
+		}
+		
+		return sum;
+	}
+}
@@ -0,0 +1,202 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * CPU Benchmark
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gameboy.core.CPU;
+import gameboy.core.cartridge.CartridgeFactory;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class CPUBenchmark {
+	/*
+	 * Slice (ticks run per operation)
+	 */
+	private static final int SLICE_TICKS = 1 << 12;
+	
+	/*
+	 * Prologue: DI; LD SP,DFFF; LD HL,C000; LD DE,C000; LD BC,1234 (the loop follows at 015D)
+	 */
+	private static final int[] PROLOGUE = {
+		0xF3, 0x31, 0xFF, 0xDF, 0x21, 0x00, 0xC0, 0x11, 0x00, 0xC0, 0x01, 0x34, 0x12
+	};
+	
+	/*
+	 * Instruction Mixes (endless loops whose registers change on every pass)
+	 */
+	private static final int[] MIX_ALU = {
+		0x80,						// ADD A,B
+		0x89,						// ADC A,C
+		0x92,						// SUB D
+		0xA3,						// AND E
+		0xAC,						// XOR H
+		0xB5,						// OR L
+		0xB8,						// CP B
+		0x04,						// INC B
+		0x0D,						// DEC C
+		0x14,						// INC D
+		0x07,						// RLCA
+		0x18, 0xF3					// JR 015D
+	};
+	
+	private static final int[] MIX_LOAD = {
+		0x2A,						// LD A,(HL+)
+		0x12,						// LD (DE),A
+		0x1C,						// INC E
+		0x47,						// LD B,A
+		0x70,						// LD (HL),B
+		0xF0, 0x80,					// LDH A,(FF80)
+		0xE0, 0x81,					// LDH (FF81),A
+		0xCB, 0xAC,					// RES 5,H
+		0x18, 0xF3					// JR 015D
+	};
+	
+	private static final int[] MIX_BRANCH = {
+		0xC5,						// PUSH BC
+		0xCD, 0x69, 0x01,			// CALL 0169
+		0xC1,						// POP BC
+		0x04,						// INC B
+		0x20, 0x01,					// JR NZ,0166
+		0x00,						// NOP
+		0xC3, 0x5D, 0x01,			// JP 015D
+		0x0C,						// INC C
+		0xC9						// RET
+	};
+	
+	private static final int[] MIX_BITS = {
+		0xCB, 0x00,					// RLC B
+		0xCB, 0x31,					// SWAP C
+		0xCB, 0x5A,					// BIT 3,D
+		0xCB, 0xCB,					// SET 1,E
+		0xCB, 0x8B,					// RES 1,E
+		0xCB, 0x3C,					// SRL H
+		0xCB, 0x1D,					// RR L
+		0x24,						// INC H
+		0x18, 0xEF					// JR 015D
+	};
+	
+	/*
+	 * Spread over every quadrant of both opcode tables, so that the dispatch
+	 * rather than one handler is measured
+	 */
+	private static final int[] MIX_DISPATCH = {
+		0x00,						// NOP
+		0x3C,						// INC A
+		0x41,						// LD B,C
+		0x5A,						// LD E,D
+		0x63,						// LD H,E
+		0x88,						// ADC A,B
+		0x91,						// SUB C
+		0xAA,						// XOR D
+		0xB3,						// OR E
+		0xC6, 0x05,					// ADD A,05
+		0xE6, 0xF7,					// AND F7
+		0xCB, 0x11,					// RL C
+		0xCB, 0x47,					// BIT 0,A
+		0xCB, 0x93,					// RES 2,E
+		0xCB, 0xDC,					// SET 3,H
+		0x2F,						// CPL
+		0x37,						// SCF
+		0x3F,						// CCF
+		0x1F,						// RRA
+		0x78,						// LD A,B
+		0xF5,						// PUSH AF
+		0xF1,						// POP AF
+		0x23,						// INC HL
+		0x18, 0xE1					// JR 015D
+	};
+	
+	@Param({ "alu", "load", "branch", "bits", "dispatch" })
+	public String mix;
+	
+	@Param({ "interpreter", "block", "recompiler" })
+	public String engine;
+	
+	// the recompiler calls the instruction helpers directly, it has no dispatch
+	@Param({ "quadrant", "switch" })
+	public String dispatch;
+	
+	private CPU cpu;
+	
+	@Setup
+	public void setup()
+	{
+		int[] loop;
+		
+		if (mix.equals("alu"))
+			loop = MIX_ALU;
+		else if (mix.equals("load"))
+			loop = MIX_LOAD;
+		else if (mix.equals("branch"))
+			loop = MIX_BRANCH;
+		else if (mix.equals("bits"))
+			loop = MIX_BITS;
+		else
+			loop = MIX_DISPATCH;
+		
+		int[] code = new int[PROLOGUE.length + loop.length];
+		
+		System.arraycopy(PROLOGUE, 0, code, 0, PROLOGUE.length);
+		System.arraycopy(loop, 0, code, PROLOGUE.length, loop.length);
+		
+		Machine machine = new Machine(Machine.createROM(CartridgeFactory.TYPE_MBC1, 0, 0, code), false);
+		
+		cpu = machine.getGameBoy().getCPU();
+		cpu.setEngine(getEngine(engine));
+		cpu.setSwitchDispatch(dispatch.equals("switch"));
+	}
+	
+	@Benchmark
+	public void emulate()
+	{
+		// the CPU alone, the devices are never updated
+		cpu.emulate(SLICE_TICKS);
+	}
+	
+	static final int getEngine(String engine)
+	{
+		if (engine.equals("block"))
+			return CPU.ENGINE_BLOCK_CACHE;
+		
+		if (engine.equals("recompiler"))
+			return CPU.ENGINE_RECOMPILER;
+		
+		return CPU.ENGINE_INTERPRETER;
+	}
+}
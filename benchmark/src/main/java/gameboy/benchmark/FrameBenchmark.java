@@ -0,0 +1,71 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Frame Benchmark
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gameboy.core.GameBoy;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(2)
+public class FrameBenchmark {
+	@Param({ "interpreter", "block", "recompiler" })
+	public String engine;
+	
+	@Param({ "false", "true" })
+	public boolean sound;
+	
+	private GameBoy gameboy;
+	
+	@Setup
+	public void setup()
+	{
+		gameboy = new Machine(Machine.loadROM(Machine.CHIP_THE_CHICK), sound).getGameBoy();
+		gameboy.getCPU().setEngine(CPUBenchmark.getEngine(engine));
+		
+		// past the boot into the title screen
+		gameboy.runFrames(300);
+	}
+	
+	@Benchmark
+	public int runFrame()
+	{
+		// one operation is a frame, the score is frames per second
+		return gameboy.runFrame();
+	}
+}
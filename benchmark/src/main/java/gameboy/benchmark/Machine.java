@@ -0,0 +1,189 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Benchmark Machine
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import gameboy.core.GameBoy;
+import gameboy.core.driver.StoreDriver;
+import gameboy.platform.headless.Clock;
+import gameboy.platform.headless.Joypad;
+import gameboy.platform.headless.Sound;
+import gameboy.platform.headless.Video;
+
+public class Machine implements StoreDriver {
+	/*
+	 * Bundled Cartridge
+	 */
+	public static final String CHIP_THE_CHICK = "/chipthechick.gb";
+	
+	/*
+	 * Synthetic Cartridge Layout
+	 */
+	private static final int ENTRY_ADDR = 0x0100;
+	private static final int CODE_ADDR = 0x0150;
+	
+	private byte[] rom;
+	
+	private Video video;
+	private Sound sound;
+	private GameBoy gameboy;
+	
+	public Machine(byte[] rom, boolean sound)
+	{
+		this.rom = rom;
+		
+		video = new Video(160, 144);
+		this.sound = new Sound(44100, 2, 8);
+		this.sound.setEnabled(sound);
+		
+		gameboy = new GameBoy(video, this.sound, new Joypad(), this, new Clock(0));
+		gameboy.load("rom");
+		gameboy.reset();
+	}
+	
+	public final GameBoy getGameBoy()
+	{
+		return gameboy;
+	}
+	
+	public final Video getVideo()
+	{
+		return video;
+	}
+	
+	/*
+	 * Cartridges
+	 */
+	public static final byte[] loadROM(String resourceName)
+	{
+		try {
+			InputStream input = Machine.class.getResourceAsStream(resourceName);
+			
+			if (input == null)
+				throw new IOException("Missing resource");
+			
+			try {
+				byte[] buffer = new byte[1 << 16];
+				byte[] rom = new byte[0];
+				int length;
+				
+				while ((length = input.read(buffer, 0, buffer.length)) > 0) {
+					byte[] newROM = new byte[rom.length + length];
+					
+					System.arraycopy(rom, 0, newROM, 0, rom.length);
+					System.arraycopy(buffer, 0, newROM, rom.length, length);
+					
+					rom = newROM;
+				}
+				
+				return rom;
+			}
+			finally {
+				input.close();
+			}
+		}
+		catch (IOException exception) {
+			throw new RuntimeException("Could not load cartridge: " + resourceName);
+		}
+	}
+	
+	public static final byte[] createROM(int type, int romSize, int ramSize, int[] code)
+	{
+		byte[] rom = new byte[32768 << romSize];
+		
+		// entry point: NOP; JP 0150
+		rom[ENTRY_ADDR + 0] = (byte) 0x00;
+		rom[ENTRY_ADDR + 1] = (byte) 0xC3;
+		rom[ENTRY_ADDR + 2] = (byte) (CODE_ADDR & 0xFF);
+		rom[ENTRY_ADDR + 3] = (byte) (CODE_ADDR >> 8);
+		
+		for (int index = 0; index < code.length; index++)
+			rom[CODE_ADDR + index] = (byte) code[index];
+		
+		// every switchable bank starts with its own number
+		for (int bank = 1; bank < rom.length / 0x4000; bank++)
+			rom[bank * 0x4000] = (byte) bank;
+		
+		rom[0x0147] = (byte) type;
+		rom[0x0148] = (byte) romSize;
+		rom[0x0149] = (byte) ramSize;
+		
+		int checksum = 0xE7;
+		
+		for (int address = 0x0134; address <= 0x014C; address++)
+			checksum = (checksum - (rom[address] & 0xFF)) & 0xFF;
+		
+		rom[0x014D] = (byte) checksum;
+		
+		checksum = 0;
+		
+		for (int address = 0; address < rom.length; address++)
+			checksum = (checksum + (rom[address] & 0xFF)) & 0xFFFF;
+		
+		rom[0x014E] = (byte) (checksum >> 8);
+		rom[0x014F] = (byte) checksum;
+		
+		return rom;
+	}
+	
+	/*
+	 * In-Memory Store
+	 */
+	public boolean hasCartridge(String cartridgeName)
+	{
+		return true;
+	}
+
+	public int getCartridgeSize(String cartridgeName)
+	{
+		return rom.length;
+	}
+
+	public void readCartridge(String cartridgeName, byte[] buffer)
+	{
+		System.arraycopy(rom, 0, buffer, 0, buffer.length);
+	}
+
+	public boolean hasBattery(String cartridgeName)
+	{
+		return false;
+	}
+
+	public int getBatterySize(String cartridgeName)
+	{
+		return 0;
+	}
+
+	public void readBattery(String cartridgeName, byte[] buffer)
+	{
+	}
+
+	public void writeBattery(String cartridgeName, byte[] buffer)
+	{
+	}
+
+	public void removeBattery(String cartridgeName)
+	{
+	}
+}
@@ -0,0 +1,137 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Memory Bus Benchmark
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gameboy.core.GameBoy;
+import gameboy.core.cartridge.CartridgeFactory;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class MemoryBenchmark {
+	/*
+	 * Accesses per Operation
+	 */
+	private static final int ACCESSES = 256;
+	
+	/*
+	 * Address Regions (writes to the ROM regions hit the MBC registers)
+	 */
+	@Param({ "rom0", "romx", "vram", "sram", "wram", "echo", "oam", "io", "hram" })
+	public String region;
+	
+	private GameBoy gameboy;
+	private int[] addresses;
+	
+	@Setup
+	public void setup()
+	{
+		// MBC1 with 64KB ROM and 8KB RAM
+		Machine machine = new Machine(Machine.createROM(CartridgeFactory.TYPE_MBC1_RAM, 1, 2, new int[0]), false);
+		
+		gameboy = machine.getGameBoy();
+		
+		// RAM enable
+		gameboy.write(0x0000, 0x0A);
+		
+		int base, size;
+		
+		if (region.equals("rom0")) {
+			base = 0x0000; size = 0x4000;
+		}
+		else if (region.equals("romx")) {
+			base = 0x4000; size = 0x4000;
+		}
+		else if (region.equals("vram")) {
+			base = 0x8000; size = 0x2000;
+		}
+		else if (region.equals("sram")) {
+			base = 0xA000; size = 0x2000;
+		}
+		else if (region.equals("wram")) {
+			base = 0xC000; size = 0x2000;
+		}
+		else if (region.equals("echo")) {
+			base = 0xE000; size = 0x1E00;
+		}
+		else if (region.equals("oam")) {
+			base = 0xFE00; size = 0xA0;
+		}
+		else if (region.equals("io")) {
+			// SCY, SCX: registers without side effects
+			base = 0xFF42; size = 0x02;
+		}
+		else {
+			base = 0xFF80; size = 0x7F;
+		}
+		
+		addresses = new int[ACCESSES];
+		
+		// spread over the region in a fixed order
+		for (int index = 0; index < ACCESSES; index++)
+			addresses[index] = base + (index * 0x9E5) % size;
+		
+		// rom0 stays below 2000, its writes only hit the RAM enable register and keep RAM on
+		if (region.equals("rom0")) {
+			for (int index = 0; index < ACCESSES; index++)
+				addresses[index] &= 0x1FFF;
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(ACCESSES)
+	public int read()
+	{
+		int sum = 0;
+		
+		for (int index = 0; index < ACCESSES; index++)
+			sum += gameboy.read(addresses[index]);
+		
+		return sum;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(ACCESSES)
+	public void write()
+	{
+		for (int index = 0; index < ACCESSES; index++)
+			gameboy.write(addresses[index], 0x0A);
+	}
+}
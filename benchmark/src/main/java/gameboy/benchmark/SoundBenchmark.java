@@ -0,0 +1,100 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Sound Benchmark
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gameboy.core.Arena;
+import gameboy.core.Sound;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class SoundBenchmark {
+	/*
+	 * Mixing Period (the sound clock mixes 1/256 s at a time)
+	 */
+	private static final int MIX_TICKS = Sound.GAMEBOY_CLOCK / Sound.SOUND_CLOCK;
+	
+	private Sound sound;
+	
+	@Setup
+	public void setup()
+	{
+		gameboy.platform.headless.Sound driver = new gameboy.platform.headless.Sound(44100, 2, 8);
+		
+		driver.setEnabled(true);
+		
+		sound = new Sound(driver, new byte[Arena.getSize(0)]);
+		
+		sound.write(Sound.NR52, 0x80);
+		sound.write(Sound.NR50, 0x77);
+		sound.write(Sound.NR51, 0xFF);
+		
+		// square with sweep off, square, wave and noise, full volume, no length limit
+		sound.write(Sound.NR10, 0x00);
+		sound.write(Sound.NR11, 0x80);
+		sound.write(Sound.NR12, 0xF0);
+		sound.write(Sound.NR13, 0x00);
+		sound.write(Sound.NR14, 0x87);
+		
+		sound.write(Sound.NR21, 0x40);
+		sound.write(Sound.NR22, 0xF0);
+		sound.write(Sound.NR23, 0x80);
+		sound.write(Sound.NR24, 0x86);
+		
+		for (int index = 0; index < 16; index++)
+			sound.write(Sound.AUD3WAVERAM + index, (index * 0x11) ^ 0x0F);
+		
+		sound.write(Sound.NR30, 0x80);
+		sound.write(Sound.NR32, 0x20);
+		sound.write(Sound.NR33, 0x00);
+		sound.write(Sound.NR34, 0x85);
+		
+		sound.write(Sound.NR42, 0xF0);
+		sound.write(Sound.NR43, 0x22);
+		sound.write(Sound.NR44, 0x80);
+		
+		if ((sound.read(Sound.NR52) & 0x0F) != 0x0F)
+			throw new RuntimeException("Sound channels are not playing");
+	}
+	
+	@Benchmark
+	public void mixAudio()
+	{
+		sound.emulate(MIX_TICKS);
+	}
+}
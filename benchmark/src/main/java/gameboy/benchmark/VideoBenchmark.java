@@ -0,0 +1,139 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Video Benchmark
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gameboy.core.Arena;
+import gameboy.core.Interrupt;
+import gameboy.core.Memory;
+import gameboy.core.Video;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class VideoBenchmark {
+	/*
+	 * Frame Layout (144 drawn lines out of 154)
+	 */
+	private static final int LINES = 144;
+	private static final int LINE_TICKS = Video.FRAME_TICKS / 154;
+	
+	/*
+	 * Layers (BG only, BG and a window over the right half, BG and 40 8x16 sprites, or all of them)
+	 */
+	@Param({ "background", "window", "sprites", "all" })
+	public String layers;
+	
+	private Video video;
+	private int palette;
+	
+	@Setup
+	public void setup()
+	{
+		Memory memory = new Memory() {
+			public void write(int address, int data)
+			{
+			}
+			
+			public int read(int address)
+			{
+				return 0xFF;
+			}
+		};
+		
+		video = new Video(new gameboy.platform.headless.Video(160, 144), new Interrupt(), memory, new byte[Arena.getSize(0)]);
+		
+		// tile data from a fixed generator, maps counting through the tiles
+		int seed = 0x1234;
+		
+		for (int address = 0x8000; address < 0x9800; address++) {
+			seed = seed * 1103515245 + 12345;
+			video.write(address, (seed >> 16) & 0xFF);
+		}
+		
+		for (int address = 0x9800; address < 0xA000; address++)
+			video.write(address, address & 0xFF);
+		
+		// four rows of ten sprites each
+		for (int index = 0; index < 40; index++) {
+			video.write(Video.OAM_ADDR + index * 4 + 0, 16 + (index / 10) * 36);
+			video.write(Video.OAM_ADDR + index * 4 + 1, 8 + (index % 10) * 16);
+			video.write(Video.OAM_ADDR + index * 4 + 2, index * 2);
+			video.write(Video.OAM_ADDR + index * 4 + 3, (index * 0x10) & 0xF0);
+		}
+		
+		video.write(Video.BGP, 0xE4);
+		video.write(Video.OBP0, 0xD2);
+		video.write(Video.OBP1, 0x1B);
+		video.write(Video.SCY, 5);
+		video.write(Video.SCX, 3);
+		video.write(Video.WY, 0);
+		video.write(Video.WX, 87);
+		
+		if (layers.equals("background"))
+			video.write(Video.LCDC, 0x91);
+		else if (layers.equals("window"))
+			video.write(Video.LCDC, 0xF1);
+		else if (layers.equals("sprites"))
+			video.write(Video.LCDC, 0x97);
+		else
+			video.write(Video.LCDC, 0xF7);
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(LINES)
+	public void drawLine()
+	{
+		// a whole frame, the blank lines and the frame copy are spread over the drawn lines
+		video.emulate(Video.FRAME_TICKS);
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(LINES)
+	public void updatePalette()
+	{
+		// a new BG palette on every line, the cost over drawLine is the palette rebuild
+		for (int line = 0; line < 154; line++) {
+			palette = (palette + 0x39) & 0xFF;
+			
+			video.write(Video.BGP, palette);
+			video.emulate(LINE_TICKS);
+		}
+	}
+}
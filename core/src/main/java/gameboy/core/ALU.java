@@ -0,0 +1,211 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * ALU Flag Lookup Tables
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+final class ALU {
+	/*
+	 * Flags
+	 */
+	private static final int Z_FLAG = CPU.Z_FLAG;
+	private static final int N_FLAG = CPU.N_FLAG;
+	private static final int H_FLAG = CPU.H_FLAG;
+	private static final int C_FLAG = CPU.C_FLAG;
+	
+	/*
+	 * ADD/ADC and SUB/SBC/CP Tables, indexed by (carry << 16) + (a << 8) + data
+	 */
+	static final char[] ADD = new char[0x20000];
+	static final char[] SUB = new char[0x20000];
+	
+	/*
+	 * INC/DEC Tables (carry flag excluded), indexed by data
+	 */
+	static final char[] INC = new char[0x100];
+	static final char[] DEC = new char[0x100];
+	
+	/*
+	 * Rotate and Shift Tables, indexed by data (RL/RR by (carry << 8) + data)
+	 */
+	static final char[] RLC = new char[0x100];
+	static final char[] RRC = new char[0x100];
+	static final char[] RL = new char[0x200];
+	static final char[] RR = new char[0x200];
+	static final char[] SLA = new char[0x100];
+	static final char[] SRA = new char[0x100];
+	static final char[] SRL = new char[0x100];
+	static final char[] SWAP = new char[0x100];
+	
+	/*
+	 * DAA Table, indexed by ((f & (N|H|C)) << 4) + a
+	 */
+	static final char[] DAA = new char[0x800];
+	
+	/*
+	 * Each entry packs the result in bits 15-8 and the flags in bits 7-0
+	 */
+	static {
+		for (int a = 0; a < 0x100; a++) {
+			for (int data = 0; data < 0x100; data++) {
+				int index = (a << 8) + data;
+				
+				ADD[index] = add(a, data);
+				ADD[0x10000 + index] = adc(a, data, C_FLAG);
+				SUB[index] = sub(a, data);
+				SUB[0x10000 + index] = sbc(a, data, C_FLAG);
+			}
+		}
+		
+		for (int data = 0; data < 0x100; data++) {
+			INC[data] = inc(data);
+			DEC[data] = dec(data);
+			RLC[data] = rlc(data);
+			RRC[data] = rrc(data);
+			RL[data] = rl(data, 0);
+			RL[0x100 + data] = rl(data, C_FLAG);
+			RR[data] = rr(data, 0);
+			RR[0x100 + data] = rr(data, C_FLAG);
+			SLA[data] = sla(data);
+			SRA[data] = sra(data);
+			SRL[data] = srl(data);
+			SWAP[data] = swap(data);
+		}
+		
+		for (int f = 0; f < 0x80; f += 0x10) {
+			for (int a = 0; a < 0x100; a++)
+				DAA[(f << 4) + a] = daa(a, f);
+		}
+	}
+	
+	private ALU()
+	{
+	}
+	
+	private static final char pack(int s, int f)
+	{
+		return (char) ((s << 8) + f);
+	}
+	
+	private static final char add(int a, int data)
+	{
+		int s = (a + data) & 0xFF;
+		return pack(s, (s == 0 ? Z_FLAG : 0) + (s < a ? C_FLAG : 0) + ((s & 0x0F) < (a & 0x0F) ? H_FLAG : 0));
+	}
+
+	private static final char adc(int a, int data, int f)
+	{
+		int s = a + data + ((f & C_FLAG) >> 4);
+		return pack(s & 0xFF, ((s & 0xff) == 0 ? Z_FLAG : 0) + (s >= 0x100 ? C_FLAG : 0) + (((s ^ a ^ data) & 0x10) != 0 ? H_FLAG : 0));
+	}
+
+	private static final char sub(int a, int data)
+	{
+		int s = (a - data) & 0xFF;
+		return pack(s, (s == 0 ? Z_FLAG : 0) + (s > a ? C_FLAG : 0) + ((s & 0x0F) > (a & 0x0F) ? H_FLAG : 0) + N_FLAG);
+	}
+
+	private static final char sbc(int a, int data, int f)
+	{
+		int s = a - data - ((f & C_FLAG) >> 4);
+		return pack(s & 0xFF, ((s & 0xFF) == 0 ? Z_FLAG : 0) + ((s & 0xFF00) != 0 ? C_FLAG : 0) + (((s ^ a ^ data) & 0x10) != 0 ? H_FLAG : 0) + N_FLAG);
+	}
+
+	private static final char inc(int data)
+	{
+		data = (data + 1) & 0xFF;
+		return pack(data, (data == 0 ? Z_FLAG : 0) + ((data & 0x0F) == 0x00 ? H_FLAG : 0));
+	}
+
+	private static final char dec(int data)
+	{
+		data = (data - 1) & 0xFF;
+		return pack(data, (data == 0 ? Z_FLAG : 0) + ((data & 0x0F) == 0x0F ? H_FLAG : 0) + N_FLAG);
+	}
+
+	private static final char rlc(int data)
+	{
+		int s = ((data & 0x7F) << 1) + ((data & 0x80) >> 7);
+		return pack(s, (s == 0 ? Z_FLAG : 0) + ((data & 0x80) != 0 ? C_FLAG : 0));
+	}
+
+	private static final char rl(int data, int f)
+	{
+		int s = ((data & 0x7F) << 1) + ((f & C_FLAG) != 0 ? 0x01 : 0x00);
+		return pack(s, (s == 0 ? Z_FLAG : 0) + ((data & 0x80) != 0 ? C_FLAG : 0));
+	}
+
+	private static final char rrc(int data)
+	{
+		int s = (data >> 1) + ((data & 0x01) << 7);
+		return pack(s, (s == 0 ? Z_FLAG : 0) + ((data & 0x01) != 0 ? C_FLAG : 0));
+	}
+
+	private static final char rr(int data, int f)
+	{
+		int s = (data >> 1) + ((f & C_FLAG) << 3);
+		return pack(s, (s == 0 ? Z_FLAG : 0) + ((data & 0x01) != 0 ? C_FLAG : 0));
+	}
+
+	private static final char sla(int data)
+	{
+		int s = (data << 1) & 0xFF;
+		return pack(s, (s == 0 ? Z_FLAG : 0) + ((data & 0x80) != 0 ? C_FLAG : 0));
+	}
+
+	private static final char sra(int data)
+	{
+		int s = (data >> 1) + (data & 0x80);
+		return pack(s, (s == 0 ? Z_FLAG : 0) + ((data & 0x01) != 0 ? C_FLAG : 0));
+	}
+
+	private static final char srl(int data)
+	{
+		int s = (data >> 1);
+		return pack(s, (s == 0 ? Z_FLAG : 0) + ((data & 0x01) != 0 ? C_FLAG : 0));
+	}
+
+	private static final char swap(int data)
+	{
+		int s = ((data << 4) & 0xF0) + ((data >> 4) & 0x0F);
+		return pack(s, (s == 0 ? Z_FLAG : 0));
+	}
+	
+	private static final char daa(int a, int f)
+	{
+		int delta = 0;
+
+		if ((f & H_FLAG) != 0 || (a & 0x0F) > 0x09)
+			delta |= 0x06;
+
+		if ((f & C_FLAG) != 0 || (a & 0xF0) > 0x90)
+			delta |= 0x60;
+
+		if ((a & 0xF0) > 0x80 && (a & 0x0F) > 0x09)
+			delta |= 0x60;
+
+		if ((f & N_FLAG) == 0)
+			a = (a + delta) & 0xFF;
+		else
+			a = (a - delta) & 0xFF;
+
+		return pack(a, (f & N_FLAG) + (delta >= 0x60 ? C_FLAG : 0) + (a == 0 ? Z_FLAG : 0));
+	}
+}
@@ -0,0 +1,52 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * State Arena
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+public final class Arena {
+	/*
+	 * Region Offsets (every memory lives in one array, the cartridge RAM comes last)
+	 */
+	public static final int VRAM			= 0x0000;		/* 8000-9FFF Video RAM */
+	public static final int WRAM			= 0x2000;		/* C000-DFFF Work RAM */
+	public static final int OAM				= 0x4000;		/* FE00-FE9F Object Attributes */
+	public static final int HRAM			= 0x40A0;		/* FF80-FFFF High RAM */
+	public static final int WAVE			= 0x4120;		/* FF30-FF3F Wave Pattern RAM */
+	public static final int CARTRIDGE_RAM	= 0x4130;		/* A000-BFFF External RAM banks */
+	
+	/*
+	 * Region Sizes
+	 */
+	public static final int VRAM_SIZE		= 0x2000;
+	public static final int WRAM_SIZE		= 0x2000;
+	public static final int OAM_SIZE		= 0x00A0;
+	public static final int HRAM_SIZE		= 0x0080;
+	public static final int WAVE_SIZE		= 0x0010;
+	
+	private Arena()
+	{
+	}
+	
+	public static final int getSize(int cartridgeRAMSize)
+	{
+		return CARTRIDGE_RAM + cartridgeRAMSize;
+	}
+}
@@ -0,0 +1,281 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Predecoded Code Block Cache
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+final class BlockCache {
+	/*
+	 * Operation Kinds (bits 8-9 of a decoded operation)
+	 */
+	static final int PLAIN = 0x000;
+	static final int PREFIX_CB = 0x100;
+	static final int IMMEDIATE = 0x200;
+	
+	/*
+	 * Maximum Instructions per Block
+	 */
+	private static final int MAX_LENGTH = 32;
+	
+	/*
+	 * Instruction Lengths (0 = never cached: STOP and invalid opcodes)
+	 */
+	private static final byte[] LENGTHS = {
+		1, 3, 1, 1, 1, 1, 2, 1, 3, 1, 1, 1, 1, 1, 2, 1,
+		0, 3, 1, 1, 1, 1, 2, 1, 2, 1, 1, 1, 1, 1, 2, 1,
+		2, 3, 1, 1, 1, 1, 2, 1, 2, 1, 1, 1, 1, 1, 2, 1,
+		2, 3, 1, 1, 1, 1, 2, 1, 2, 1, 1, 1, 1, 1, 2, 1,
+		1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+		1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+		1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+		1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+		1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+		1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+		1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+		1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+		1, 1, 3, 3, 3, 1, 2, 1, 1, 1, 3, 2, 3, 3, 2, 1,
+		1, 1, 3, 0, 3, 1, 2, 1, 1, 1, 3, 0, 3, 0, 2, 1,
+		2, 1, 1, 0, 0, 1, 2, 1, 2, 1, 3, 0, 0, 0, 2, 1,
+		2, 1, 1, 1, 0, 1, 2, 1, 2, 1, 3, 1, 0, 0, 2, 1
+	};
+	
+	/*
+	 * Block Terminators (jumps, calls, returns, restarts, HALT and EI)
+	 */
+	private static final boolean[] BRANCHES = new boolean[0x100];
+	
+	static {
+		int[] opcodes = {
+			0x18, 0x20, 0x28, 0x30, 0x38,
+			0xC0, 0xC2, 0xC3, 0xC4, 0xC7, 0xC8, 0xC9, 0xCA, 0xCC, 0xCD, 0xCF,
+			0xD0, 0xD2, 0xD4, 0xD7, 0xD8, 0xD9, 0xDA, 0xDC, 0xDF,
+			0xE7, 0xE9, 0xEF, 0xF7, 0xFF,
+			0x76, 0xFB
+		};
+		
+		for (int index = 0; index < opcodes.length; index++)
+			BRANCHES[opcodes[index]] = true;
+	}
+	
+	/*
+	 * Memory Access
+	 */
+	private Memory memory;
+	private PageTable pageTable;
+	private int[] readOffsets;
+	
+	/*
+	 * Cached Blocks (0000-3FFF, 4000-7FFF per bank, C000-DFFF and FF80-FFFE;
+	 * the tables are allocated on first use and the ROM ones may be shared with
+	 * a forked machine)
+	 */
+	private CodeBlock[] fixedBlocks;
+	private CodeBlock[][] bankBlocks = new CodeBlock[0][];
+	private CodeBlock[] ramBlocks;
+	
+	/*
+	 * Decoded RAM Range per Page (low inclusive, high exclusive)
+	 */
+	private int[] codeLow = new int[PageTable.PAGES];
+	private int[] codeHigh = new int[PageTable.PAGES];
+	
+	/*
+	 * Decoder Buffers
+	 */
+	private int[] code = new int[MAX_LENGTH];
+	private int[] next = new int[MAX_LENGTH];
+	
+	BlockCache(Memory memory, PageTable pageTable)
+	{
+		this.memory = memory;
+		this.pageTable = pageTable;
+		this.readOffsets = pageTable.getReadOffsets();
+	}
+	
+	final void setROM(byte[] rom)
+	{
+		bankBlocks = new CodeBlock[rom.length >> 14][];
+		
+		flush();
+	}
+	
+	final void flush()
+	{
+		// fresh tables, the old ones may still be in use by a forked machine
+		fixedBlocks = null;
+		bankBlocks = new CodeBlock[bankBlocks.length][];
+
+		flushRAM();
+	}
+	
+	final void share(BlockCache blockCache)
+	{
+		// the ROM is the same, so are the blocks decoded from it
+		fixedBlocks = blockCache.fixedBlocks;
+		bankBlocks = blockCache.bankBlocks;
+	}
+	
+	final void flushRAM()
+	{
+		// ROM blocks never go stale, only the RAM contents can change
+		for (int page = 0; page < PageTable.PAGES; page++) {
+			if (codeHigh[page] != 0)
+				invalidate(codeLow[page]);
+		}
+	}
+	
+	final CodeBlock lookup(int address)
+	{
+		CodeBlock block;
+		
+		if (address <= 0x3FFF) {
+			// 0000-3FFF Fixed ROM Bank
+			if (fixedBlocks == null)
+				fixedBlocks = new CodeBlock[0x4000];
+			
+			block = fixedBlocks[address];
+			
+			if (block == null)
+				block = fixedBlocks[address] = decode(address, 0x4000);
+		}
+		else if (address <= 0x7FFF) {
+			// 4000-7FFF Switchable ROM Bank
+			int bank = (readOffsets[address >> 8] + 0x4000) >> 14;
+			
+			if (bank < 0 || bank >= bankBlocks.length)
+				return null;
+			
+			CodeBlock[] blocks = bankBlocks[bank];
+			
+			if (blocks == null)
+				blocks = bankBlocks[bank] = new CodeBlock[0x4000];
+			
+			block = blocks[address - 0x4000];
+			
+			if (block == null)
+				block = blocks[address - 0x4000] = decode(address, 0x8000);
+		}
+		else if ((address >= 0xC000 && address <= 0xDFFF) || (address >= 0xFF80 && address <= 0xFFFE)) {
+			// C000-DFFF Work RAM and FF80-FFFE High RAM
+			if (ramBlocks == null)
+				ramBlocks = new CodeBlock[0x4000];
+			
+			block = ramBlocks[address - 0xC000];
+			
+			if (block == null) {
+				int limit = (address <= 0xDFFF ? (address & 0xFF00) + 0x100 : 0xFFFF);
+				
+				block = decode(address, limit);
+				
+				if (block != null) {
+					ramBlocks[address - 0xC000] = block;
+					watch(address, block.next[block.next.length - 1]);
+				}
+			}
+		}
+		else {
+			return null;
+		}
+		
+		return block;
+	}
+	
+	final void invalidate(int address)
+	{
+		// E000-FDFF Echo RAM
+		if (address >= 0xE000 && address <= 0xFDFF)
+			address -= 0x2000;
+		
+		int page = address >> 8;
+		
+		if (address < codeLow[page] || address >= codeHigh[page])
+			return;
+		
+		for (int index = codeLow[page]; index < codeHigh[page]; index++)
+			ramBlocks[index - 0xC000] = null;
+		
+		codeLow[page] = 0;
+		codeHigh[page] = 0;
+		
+		pageTable.unwatch(page);
+		
+		if (page <= 0xDD)
+			pageTable.unwatch(page + 0x20);
+	}
+	
+	private final void watch(int address, int end)
+	{
+		int page = address >> 8;
+		
+		if (codeHigh[page] == 0) {
+			codeLow[page] = address;
+			codeHigh[page] = end;
+		}
+		else {
+			codeLow[page] = Math.min(codeLow[page], address);
+			codeHigh[page] = Math.max(codeHigh[page], end);
+		}
+		
+		pageTable.watch(page);
+		
+		if (page <= 0xDD)
+			pageTable.watch(page + 0x20);
+	}
+	
+	private final CodeBlock decode(int address, int limit)
+	{
+		int start = address;
+		int count = 0;
+		
+		while (count < MAX_LENGTH) {
+			int opcode = memory.read(address);
+			int length = LENGTHS[opcode];
+			
+			if (length == 0 || address + length > limit)
+				break;
+			
+			if (length == 1)
+				code[count] = PLAIN + opcode;
+			else if (opcode == 0xCB)
+				code[count] = PREFIX_CB + memory.read(address + 1);
+			else if (length == 2)
+				code[count] = IMMEDIATE + opcode + (memory.read(address + 1) << 16);
+			else
+				code[count] = IMMEDIATE + opcode + ((memory.read(address + 1) + (memory.read(address + 2) << 8)) << 16);
+			
+			address += length;
+			next[count++] = address;
+			
+			if (BRANCHES[opcode])
+				break;
+		}
+		
+		if (count == 0)
+			return null;
+		
+		int[] blockCode = new int[count];
+		int[] blockNext = new int[count];
+		
+		System.arraycopy(code, 0, blockCode, 0, count);
+		System.arraycopy(next, 0, blockNext, 0, count);
+		
+		return new CodeBlock(start, blockCode, blockNext);
+	}
+}
@@ -21,10 +21,12 @@
  */
 package gameboy.core;
 
+import gameboy.core.cartridge.BankMapper;
 import gameboy.core.cartridge.CartridgeFactory;
 import gameboy.core.cartridge.MBC;
 import gameboy.core.driver.ClockDriver;
 import gameboy.core.driver.StoreDriver;
+import java.nio.ByteBuffer;
 
 public class Cartridge {
 	/*
@@ -33,9 +35,11 @@ public class Cartridge {
 	private byte[] rom;
 	
 	/*
-	 * Shadow RAM
+	 * Shadow RAM (a slice of the state arena once loaded)
 	 */
 	private byte[] ram;
+	private int ramOffset;
+	private int ramLength;
 	
 	/*
 	 * Memory Bank Controller
@@ -52,10 +56,60 @@ public class Cartridge {
 	 */
 	private ClockDriver clock;
 	
-	public Cartridge(StoreDriver store, ClockDriver clock)
+	/*
+	 * Bank Mapper
+	 */
+	private BankMapper mapper;
+	
+	public Cartridge(StoreDriver store, ClockDriver clock, BankMapper mapper)
 	{
 		this.store = store;
 		this.clock = clock;
+		this.mapper = mapper;
+	}
+	
+	public Cartridge(Cartridge cartridge, ClockDriver clock, BankMapper mapper)
+	{
+		this.store = cartridge.store;
+		this.clock = clock;
+		this.mapper = mapper;
+		
+		rom = cartridge.rom;
+		ram = cartridge.ram;
+		ramOffset = cartridge.ramOffset;
+		ramLength = cartridge.ramLength;
+		
+		mbc = CartridgeFactory.createBankController(getCartridgeType(), rom, ram, ramOffset, ramLength, clock, mapper);
+		
+		copyBanks(cartridge.mbc);
+	}
+	
+	public final void setArena(byte[] arena)
+	{
+		System.arraycopy(ram, ramOffset, arena, Arena.CARTRIDGE_RAM, ramLength);
+		
+		mapArena(arena);
+	}
+	
+	public final void mapArena(byte[] arena)
+	{
+		ram = arena;
+		ramOffset = Arena.CARTRIDGE_RAM;
+		
+		MBC controller = mbc;
+		
+		mbc = CartridgeFactory.createBankController(getCartridgeType(), rom, ram, ramOffset, ramLength, clock, mapper);
+		
+		copyBanks(controller);
+	}
+	
+	private final void copyBanks(MBC controller)
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(controller.getStateSize());
+		
+		controller.saveState(buffer);
+		buffer.flip();
+		mbc.loadState(buffer);
 	}
 	
 	public final String getTitle()
@@ -92,6 +146,11 @@ public class Cartridge {
 		return -1;
 	}
 	
+	public final int getRAMLength()
+	{
+		return ramLength;
+	}
+	
 	public final int getRAMSize()
 	{
 		int ramSize = 0;
@@ -152,13 +211,31 @@ public class Cartridge {
 	public final void reset()
 	{
 		if (!hasBattery()) {
-			for (int index = 0; index < ram.length; index++)
-				ram[index] = (byte) 0xFF;
+			for (int index = 0; index < ramLength; index++)
+				ram[ramOffset + index] = (byte) 0xFF;
 		}
 		
 		mbc.reset();
 	}
 	
+	/*
+	 * Save State
+	 */
+	public final int getStateSize()
+	{
+		return mbc.getStateSize();
+	}
+	
+	public final void saveState(ByteBuffer buffer)
+	{
+		mbc.saveState(buffer);
+	}
+	
+	public final void loadState(ByteBuffer buffer)
+	{
+		mbc.loadState(buffer);
+	}
+	
 	public final int read(int address)
 	{
 		return mbc.read(address);
@@ -189,6 +266,8 @@ public class Cartridge {
 			ramSize = 512;
 		
 		ram = new byte[ramSize];
+		ramOffset = 0;
+		ramLength = ramSize;
 		
 		for (int index = 0; index < ramSize; index++)
 			ram[index] = (byte) 0xFF;
@@ -196,13 +275,18 @@ public class Cartridge {
 		if (store.hasBattery(cartridgeName))
 			store.readBattery(cartridgeName, ram);
 		
-		mbc = CartridgeFactory.createBankController(getCartridgeType(), rom, ram, clock);
+		mbc = CartridgeFactory.createBankController(getCartridgeType(), rom, ram, ramOffset, ramLength, clock, mapper);
 	}
 	
 	public final void save(String cartridgeName)
 	{
-		if (hasBattery())
-			store.writeBattery(cartridgeName, ram);
+		if (hasBattery()) {
+			byte[] battery = new byte[ramLength];
+			
+			System.arraycopy(ram, ramOffset, battery, 0, ramLength);
+			
+			store.writeBattery(cartridgeName, battery);
+		}
 	}
 
 	public final boolean verify()
@@ -0,0 +1,338 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Minimal Class File Writer
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+final class ClassBuilder {
+	/*
+	 * Class File Format (version 49 needs no stack map frames)
+	 */
+	private static final int MAGIC = 0xCAFEBABE;
+	private static final int MAJOR_VERSION = 49;
+	
+	/*
+	 * Access Flags
+	 */
+	private static final int ACC_PUBLIC = 0x0001;
+	private static final int ACC_FINAL = 0x0010;
+	private static final int ACC_SUPER = 0x0020;
+	
+	/*
+	 * Constant Pool Tags
+	 */
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_INTEGER = 3;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+	
+	/*
+	 * Opcodes
+	 */
+	static final int ICONST_0 = 0x03;
+	static final int BIPUSH = 0x10;
+	static final int SIPUSH = 0x11;
+	static final int LDC_W = 0x13;
+	static final int ILOAD = 0x15;
+	static final int ALOAD = 0x19;
+	static final int ISTORE = 0x36;
+	static final int IFGT = 0x9D;
+	static final int IF_ICMPEQ = 0x9F;
+	static final int GOTO = 0xA7;
+	static final int RETURN = 0xB1;
+	static final int INVOKEVIRTUAL = 0xB6;
+	static final int INVOKESPECIAL = 0xB7;
+	static final int INVOKESTATIC = 0xB8;
+	
+	private String name;
+	private String superName;
+	
+	/*
+	 * Constant Pool
+	 */
+	private ByteArrayOutputStream pool = new ByteArrayOutputStream();
+	private DataOutputStream poolOut = new DataOutputStream(pool);
+	private HashMap<String, Integer> constants = new HashMap<String, Integer>();
+	private int constantCount = 1;
+	
+	/*
+	 * Methods
+	 */
+	private ByteArrayOutputStream methods = new ByteArrayOutputStream();
+	private DataOutputStream methodsOut = new DataOutputStream(methods);
+	private int methodCount;
+	
+	/*
+	 * Current Method
+	 */
+	private int methodName;
+	private int methodDescriptor;
+	private ByteArrayOutputStream code;
+	private DataOutputStream codeOut;
+	
+	ClassBuilder(String name, String superName)
+	{
+		this.name = name;
+		this.superName = superName;
+	}
+	
+	final void beginMethod(String name, String descriptor)
+	{
+		methodName = utf8(name);
+		methodDescriptor = utf8(descriptor);
+		
+		code = new ByteArrayOutputStream();
+		codeOut = new DataOutputStream(code);
+	}
+	
+	final void endMethod(int maxStack, int maxLocals)
+	{
+		try {
+			int codeAttribute = utf8("Code");
+			
+			methodsOut.writeShort(ACC_PUBLIC);
+			methodsOut.writeShort(methodName);
+			methodsOut.writeShort(methodDescriptor);
+			methodsOut.writeShort(1);
+			
+			methodsOut.writeShort(codeAttribute);
+			methodsOut.writeInt(12 + code.size());
+			methodsOut.writeShort(maxStack);
+			methodsOut.writeShort(maxLocals);
+			methodsOut.writeInt(code.size());
+			code.writeTo(methodsOut);
+			methodsOut.writeShort(0);
+			methodsOut.writeShort(0);
+			
+			methodCount++;
+		}
+		catch (IOException exception) {
+			throw new RuntimeException(exception);
+		}
+		
+		code = null;
+		codeOut = null;
+	}
+	
+	final void emit(int opcode)
+	{
+		code.write(opcode);
+	}
+	
+	final void emitLocal(int opcode, int index)
+	{
+		code.write(opcode);
+		code.write(index);
+	}
+	
+	final void emitInt(int value)
+	{
+		try {
+			if (value >= 0 && value <= 5) {
+				code.write(ICONST_0 + value);
+			}
+			else if (value >= -128 && value <= 127) {
+				code.write(BIPUSH);
+				code.write(value);
+			}
+			else if (value >= -32768 && value <= 32767) {
+				code.write(SIPUSH);
+				codeOut.writeShort(value);
+			}
+			else {
+				code.write(LDC_W);
+				codeOut.writeShort(integer(value));
+			}
+		}
+		catch (IOException exception) {
+			throw new RuntimeException(exception);
+		}
+	}
+	
+	final void emitInvoke(int opcode, String owner, String name, String descriptor)
+	{
+		try {
+			code.write(opcode);
+			codeOut.writeShort(methodRef(owner, name, descriptor));
+		}
+		catch (IOException exception) {
+			throw new RuntimeException(exception);
+		}
+	}
+	
+	final int position()
+	{
+		return code.size();
+	}
+	
+	final void emitBranch(int opcode, int target)
+	{
+		int offset = target - code.size();
+		
+		code.write(opcode);
+		code.write((offset >> 8) & 0xFF);
+		code.write(offset & 0xFF);
+	}
+	
+	/**
+	 * Emits a conditional branch over a RETURN, so the method returns
+	 * unless the branch condition holds.
+	 */
+	final void emitReturnUnless(int branch)
+	{
+		code.write(branch);
+		code.write(0x00);
+		code.write(0x04);
+		code.write(RETURN);
+	}
+	
+	final byte[] toByteArray()
+	{
+		try {
+			int thisClass = classRef(name);
+			int superClass = classRef(superName);
+			
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			
+			out.writeInt(MAGIC);
+			out.writeShort(0);
+			out.writeShort(MAJOR_VERSION);
+			out.writeShort(constantCount);
+			pool.writeTo(out);
+			out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			out.writeShort(0);
+			out.writeShort(0);
+			out.writeShort(methodCount);
+			methods.writeTo(out);
+			out.writeShort(0);
+			
+			return bytes.toByteArray();
+		}
+		catch (IOException exception) {
+			throw new RuntimeException(exception);
+		}
+	}
+	
+	/*
+	 * Constant Pool Entries
+	 */
+	private final int utf8(String value)
+	{
+		Integer index = constants.get("U" + value);
+		
+		if (index != null)
+			return index.intValue();
+		
+		try {
+			poolOut.writeByte(CONSTANT_UTF8);
+			poolOut.writeUTF(value);
+		}
+		catch (IOException exception) {
+			throw new RuntimeException(exception);
+		}
+		
+		return add("U" + value);
+	}
+	
+	private final int integer(int value)
+	{
+		Integer index = constants.get("I" + value);
+		
+		if (index != null)
+			return index.intValue();
+		
+		try {
+			poolOut.writeByte(CONSTANT_INTEGER);
+			poolOut.writeInt(value);
+		}
+		catch (IOException exception) {
+			throw new RuntimeException(exception);
+		}
+		
+		return add("I" + value);
+	}
+	
+	private final int classRef(String className)
+	{
+		Integer index = constants.get("C" + className);
+		
+		if (index != null)
+			return index.intValue();
+		
+		int nameIndex = utf8(className);
+		
+		try {
+			poolOut.writeByte(CONSTANT_CLASS);
+			poolOut.writeShort(nameIndex);
+		}
+		catch (IOException exception) {
+			throw new RuntimeException(exception);
+		}
+		
+		return add("C" + className);
+	}
+	
+	private final int methodRef(String owner, String name, String descriptor)
+	{
+		String key = "M" + owner + "." + name + descriptor;
+		Integer index = constants.get(key);
+		
+		if (index != null)
+			return index.intValue();
+		
+		int ownerIndex = classRef(owner);
+		int nameIndex = utf8(name);
+		int descriptorIndex = utf8(descriptor);
+		
+		try {
+			poolOut.writeByte(CONSTANT_NAME_AND_TYPE);
+			poolOut.writeShort(nameIndex);
+			poolOut.writeShort(descriptorIndex);
+			int nameAndType = add("N" + key);
+			
+			poolOut.writeByte(CONSTANT_METHODREF);
+			poolOut.writeShort(ownerIndex);
+			poolOut.writeShort(nameAndType);
+		}
+		catch (IOException exception) {
+			throw new RuntimeException(exception);
+		}
+		
+		return add(key);
+	}
+	
+	private final int add(String key)
+	{
+		int index = constantCount++;
+		
+		constants.put(key, Integer.valueOf(index));
+		
+		return index;
+	}
+}
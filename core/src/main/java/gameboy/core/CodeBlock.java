@@ -0,0 +1,52 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Predecoded Code Block
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+final class CodeBlock {
+	/*
+	 * Start Address
+	 */
+	final int address;
+	
+	/*
+	 * Decoded Operations (opcode + kind, operand in the high 16 bits)
+	 */
+	final int[] code;
+	
+	/*
+	 * Program Counter after each operation
+	 */
+	final int[] next;
+	
+	/*
+	 * Recompiler State (execution count and generated code)
+	 */
+	int hits;
+	CompiledBlock compiled;
+	
+	CodeBlock(int address, int[] code, int[] next)
+	{
+		this.address = address;
+		this.code = code;
+		this.next = next;
+	}
+}
@@ -0,0 +1,638 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Recompiled Code Block (base class and instruction templates)
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+public abstract class CompiledBlock {
+	/*
+	 * Flags
+	 */
+	private static final int Z_FLAG = CPU.Z_FLAG;
+	private static final int N_FLAG = CPU.N_FLAG;
+	private static final int H_FLAG = CPU.H_FLAG;
+	private static final int C_FLAG = CPU.C_FLAG;
+	
+	/*
+	 * Register Operands (B, C, D, E, H, L, (HL) and A)
+	 */
+	protected static final int HL_INDIRECT = 6;
+	
+	/*
+	 * Register Pair Operands (BC, DE, HL and SP, or AF for PUSH/POP)
+	 */
+	protected static final int SP_OR_AF = 3;
+	
+	/*
+	 * Condition Codes
+	 */
+	protected static final int CC_NZ = 0;
+	protected static final int CC_Z = 1;
+	protected static final int CC_NC = 2;
+	protected static final int CC_C = 3;
+	protected static final int CC_ALWAYS = 4;
+	
+	/**
+	 * Runs the block from the current PC, leaving after any instruction
+	 * that runs out of cycles, raises an interrupt or changes the page table.
+	 */
+	public abstract void execute(CPU cpu, Memory memory, PageTable pageTable);
+	
+	/*
+	 * Operand Access
+	 */
+	private static final int get(CPU cpu, Memory memory, int r)
+	{
+		switch (r) {
+		case 0:
+			return cpu.getB();
+		case 1:
+			return cpu.getC();
+		case 2:
+			return cpu.getD();
+		case 3:
+			return cpu.getE();
+		case 4:
+			return cpu.getH();
+		case 5:
+			return cpu.getL();
+		case 6:
+			return cpu.read(cpu.getHL());
+		default:
+			return cpu.getA();
+		}
+	}
+	
+	private static final void set(CPU cpu, Memory memory, int r, int data)
+	{
+		switch (r) {
+		case 0:
+			cpu.setB(data);
+			break;
+		case 1:
+			cpu.setC(data);
+			break;
+		case 2:
+			cpu.setD(data);
+			break;
+		case 3:
+			cpu.setE(data);
+			break;
+		case 4:
+			cpu.setH(data);
+			break;
+		case 5:
+			cpu.setL(data);
+			break;
+		case 6:
+			cpu.write(cpu.getHL(), data);
+			break;
+		default:
+			cpu.setA(data);
+			break;
+		}
+	}
+	
+	private static final int getPair(CPU cpu, int rr)
+	{
+		switch (rr) {
+		case 0:
+			return cpu.getBC();
+		case 1:
+			return cpu.getDE();
+		case 2:
+			return cpu.getHL();
+		default:
+			return cpu.getSP();
+		}
+	}
+	
+	private static final void setPair(CPU cpu, int rr, int data)
+	{
+		switch (rr) {
+		case 0:
+			cpu.setB(data >> 8);
+			cpu.setC(data & 0xFF);
+			break;
+		case 1:
+			cpu.setD(data >> 8);
+			cpu.setE(data & 0xFF);
+			break;
+		case 2:
+			cpu.setH(data >> 8);
+			cpu.setL(data & 0xFF);
+			break;
+		default:
+			cpu.setSP(data);
+			break;
+		}
+	}
+	
+	private static final void cycles(CPU cpu, int count)
+	{
+		cpu.setCycles(cpu.getCycles() - count);
+	}
+	
+	private static final boolean condition(CPU cpu, int cc)
+	{
+		switch (cc) {
+		case CC_NZ:
+			return (cpu.getF() & Z_FLAG) == 0;
+		case CC_Z:
+			return (cpu.getF() & Z_FLAG) != 0;
+		case CC_NC:
+			return (cpu.getF() & C_FLAG) == 0;
+		case CC_C:
+			return (cpu.getF() & C_FLAG) != 0;
+		default:
+			return true;
+		}
+	}
+	
+	/*
+	 * Stack
+	 */
+	private static final void push(CPU cpu, Memory memory, int data)
+	{
+		int sp = (cpu.getSP() - 1) & 0xFFFF;
+		cpu.setSP(sp);
+		cpu.write(sp, data);
+	}
+	
+	private static final int pop(CPU cpu, Memory memory)
+	{
+		int sp = cpu.getSP();
+		int data = memory.read(sp);
+		cpu.setSP((sp + 1) & 0xFFFF);
+		return data;
+	}
+	
+	/*
+	 * LD r,r'
+	 */
+	protected static final void load(CPU cpu, Memory memory, int dst, int src)
+	{
+		set(cpu, memory, dst, get(cpu, memory, src));
+		cycles(cpu, dst == HL_INDIRECT || src == HL_INDIRECT ? 2 : 1);
+	}
+	
+	/*
+	 * LD r,nn
+	 */
+	protected static final void loadImmediate(CPU cpu, Memory memory, int r, int data)
+	{
+		set(cpu, memory, r, data);
+		cycles(cpu, r == HL_INDIRECT ? 3 : 2);
+	}
+	
+	/*
+	 * LD rr,nnnn
+	 */
+	protected static final void loadPair(CPU cpu, int rr, int data)
+	{
+		setPair(cpu, rr, data);
+		cycles(cpu, 3);
+	}
+	
+	/*
+	 * LD SP,HL
+	 */
+	protected static final void loadSP(CPU cpu)
+	{
+		cpu.setSP(cpu.getHL());
+		cycles(cpu, 2);
+	}
+	
+	/*
+	 * LD (BC),A / LD (DE),A / LDI (HL),A / LDD (HL),A
+	 */
+	protected static final void storeIndirect(CPU cpu, Memory memory, int mode)
+	{
+		cpu.write(indirect(cpu, mode), cpu.getA());
+		step(cpu, mode);
+		cycles(cpu, 2);
+	}
+	
+	/*
+	 * LD A,(BC) / LD A,(DE) / LDI A,(HL) / LDD A,(HL)
+	 */
+	protected static final void loadIndirect(CPU cpu, Memory memory, int mode)
+	{
+		cpu.setA(cpu.read(indirect(cpu, mode)));
+		step(cpu, mode);
+		cycles(cpu, 2);
+	}
+	
+	private static final int indirect(CPU cpu, int mode)
+	{
+		switch (mode) {
+		case 0:
+			return cpu.getBC();
+		case 1:
+			return cpu.getDE();
+		default:
+			return cpu.getHL();
+		}
+	}
+	
+	private static final void step(CPU cpu, int mode)
+	{
+		if (mode == 2)
+			setPair(cpu, 2, (cpu.getHL() + 1) & 0xFFFF);
+		else if (mode == 3)
+			setPair(cpu, 2, (cpu.getHL() - 1) & 0xFFFF);
+	}
+	
+	/*
+	 * LD (nnnn),A / LDH (nn),A / LDH (C),A
+	 */
+	protected static final void storeAbsolute(CPU cpu, Memory memory, int address)
+	{
+		cpu.write(address, cpu.getA());
+		cycles(cpu, 4);
+	}
+	
+	protected static final void storeHigh(CPU cpu, Memory memory, int offset)
+	{
+		cpu.write(0xFF00 + offset, cpu.getA());
+		cycles(cpu, 3);
+	}
+	
+	protected static final void storeHighC(CPU cpu, Memory memory)
+	{
+		cpu.write(0xFF00 + cpu.getC(), cpu.getA());
+		cycles(cpu, 2);
+	}
+	
+	/*
+	 * LD A,(nnnn) / LDH A,(nn) / LDH A,(C)
+	 */
+	protected static final void loadAbsolute(CPU cpu, Memory memory, int address)
+	{
+		cpu.setA(cpu.read(address));
+		cycles(cpu, 4);
+	}
+	
+	protected static final void loadHigh(CPU cpu, Memory memory, int offset)
+	{
+		cpu.setA(cpu.read(0xFF00 + offset));
+		cycles(cpu, 3);
+	}
+	
+	protected static final void loadHighC(CPU cpu, Memory memory)
+	{
+		cpu.setA(cpu.read(0xFF00 + cpu.getC()));
+		cycles(cpu, 2);
+	}
+	
+	/*
+	 * ADD/ADC/SUB/SBC/AND/XOR/OR/CP A,r and A,nn
+	 */
+	protected static final void arithmetic(CPU cpu, Memory memory, int op, int r)
+	{
+		arithmetic(cpu, op, get(cpu, memory, r));
+		cycles(cpu, r == HL_INDIRECT ? 2 : 1);
+	}
+	
+	protected static final void arithmeticImmediate(CPU cpu, int op, int data)
+	{
+		arithmetic(cpu, op, data);
+		cycles(cpu, 2);
+	}
+	
+	private static final void arithmetic(CPU cpu, int op, int data)
+	{
+		int a = cpu.getA();
+		int s;
+		
+		switch (op) {
+		case 0:
+			s = ALU.ADD[(a << 8) + data];
+			break;
+		case 1:
+			s = ALU.ADD[((cpu.getF() & C_FLAG) << 12) + (a << 8) + data];
+			break;
+		case 2:
+			s = ALU.SUB[(a << 8) + data];
+			break;
+		case 3:
+			s = ALU.SUB[((cpu.getF() & C_FLAG) << 12) + (a << 8) + data];
+			break;
+		case 4:
+			a &= data;
+			s = (a << 8) + (a == 0 ? Z_FLAG : 0);
+			break;
+		case 5:
+			a ^= data;
+			s = (a << 8) + (a == 0 ? Z_FLAG : 0);
+			break;
+		case 6:
+			a |= data;
+			s = (a << 8) + (a == 0 ? Z_FLAG : 0);
+			break;
+		default:
+			cpu.setF(ALU.SUB[(a << 8) + data] & 0xFF);
+			return;
+		}
+		
+		cpu.setF(s & 0xFF);
+		cpu.setA(s >> 8);
+	}
+	
+	/*
+	 * INC r / DEC r
+	 */
+	protected static final void increment(CPU cpu, Memory memory, int r)
+	{
+		int s = ALU.INC[get(cpu, memory, r)];
+		cpu.setF((s & 0xFF) + (cpu.getF() & C_FLAG));
+		set(cpu, memory, r, s >> 8);
+		cycles(cpu, r == HL_INDIRECT ? 3 : 1);
+	}
+	
+	protected static final void decrement(CPU cpu, Memory memory, int r)
+	{
+		int s = ALU.DEC[get(cpu, memory, r)];
+		cpu.setF((s & 0xFF) + (cpu.getF() & C_FLAG));
+		set(cpu, memory, r, s >> 8);
+		cycles(cpu, r == HL_INDIRECT ? 3 : 1);
+	}
+	
+	/*
+	 * INC rr / DEC rr / ADD HL,rr
+	 */
+	protected static final void incrementPair(CPU cpu, int rr)
+	{
+		setPair(cpu, rr, (getPair(cpu, rr) + 1) & 0xFFFF);
+		cycles(cpu, 2);
+	}
+	
+	protected static final void decrementPair(CPU cpu, int rr)
+	{
+		setPair(cpu, rr, (getPair(cpu, rr) - 1) & 0xFFFF);
+		cycles(cpu, 2);
+	}
+	
+	protected static final void addPair(CPU cpu, int rr)
+	{
+		int hl = cpu.getHL();
+		int s = (hl + getPair(cpu, rr)) & 0xFFFF;
+		
+		cpu.setF((cpu.getF() & Z_FLAG) + (((s >> 8) & 0x0F) < ((hl >> 8) & 0x0F) ? H_FLAG : 0) + (s < hl ? C_FLAG : 0));
+		setPair(cpu, 2, s);
+		cycles(cpu, 2);
+	}
+	
+	/*
+	 * NOP / RLCA / RRCA / RLA / RRA / DAA / CPL / SCF / CCF
+	 */
+	protected static final void accumulator(CPU cpu, int opcode)
+	{
+		int a = cpu.getA();
+		int f = cpu.getF();
+		
+		switch (opcode) {
+		case 0x00:
+			cycles(cpu, 1);
+			break;
+		case 0x07:
+			cpu.setF((a & 0x80) != 0 ? C_FLAG : 0);
+			cpu.setA(((a & 0x7F) << 1) + ((a & 0x80) >> 7));
+			cycles(cpu, 1);
+			break;
+		case 0x0F:
+			cpu.setF((a & 0x01) != 0 ? C_FLAG : 0);
+			cpu.setA(((a >> 1) & 0x7F) + ((a << 7) & 0x80));
+			cycles(cpu, 1);
+			break;
+		case 0x17:
+			cpu.setF((a & 0x80) != 0 ? C_FLAG : 0);
+			cpu.setA(((a & 0x7F) << 1) + ((f & C_FLAG) != 0 ? 0x01 : 0x00));
+			cycles(cpu, 1);
+			break;
+		case 0x1F:
+			cpu.setF((a & 0x01) != 0 ? C_FLAG : 0);
+			cpu.setA(((a >> 1) & 0x7F) + ((f & C_FLAG) != 0 ? 0x80 : 0x00));
+			cycles(cpu, 1);
+			break;
+		case 0x27:
+			int s = ALU.DAA[((f & (N_FLAG | H_FLAG | C_FLAG)) << 4) + a];
+			cpu.setF(s & 0xFF);
+			cpu.setA(s >> 8);
+			cycles(cpu, 1);
+			break;
+		case 0x2F:
+			cpu.setA(a ^ 0xFF);
+			cpu.setF(f | N_FLAG + H_FLAG);
+			break;
+		case 0x37:
+			cpu.setF((f & Z_FLAG) | C_FLAG);
+			break;
+		default:
+			cpu.setF((f & (Z_FLAG | C_FLAG)) ^ C_FLAG);
+			break;
+		}
+	}
+	
+	/*
+	 * PUSH rr / POP rr
+	 */
+	protected static final void pushPair(CPU cpu, Memory memory, int rr)
+	{
+		int data = (rr == SP_OR_AF ? cpu.getAF() : getPair(cpu, rr));
+		
+		push(cpu, memory, data >> 8);
+		push(cpu, memory, data & 0xFF);
+		cycles(cpu, 4);
+	}
+	
+	protected static final void popPair(CPU cpu, Memory memory, int rr)
+	{
+		int lo = pop(cpu, memory);
+		int hi = pop(cpu, memory);
+		
+		if (rr == SP_OR_AF) {
+			cpu.setF(lo);
+			cpu.setA(hi);
+		}
+		else {
+			setPair(cpu, rr, (hi << 8) + lo);
+		}
+		
+		cycles(cpu, 3);
+	}
+	
+	/*
+	 * RLC/RRC/RL/RR/SLA/SRA/SWAP/SRL r
+	 */
+	protected static final void rotate(CPU cpu, Memory memory, int op, int r)
+	{
+		int data = get(cpu, memory, r);
+		int s;
+		
+		switch (op) {
+		case 0:
+			s = ALU.RLC[data];
+			break;
+		case 1:
+			s = ALU.RRC[data];
+			break;
+		case 2:
+			s = ALU.RL[((cpu.getF() & C_FLAG) << 4) + data];
+			break;
+		case 3:
+			s = ALU.RR[((cpu.getF() & C_FLAG) << 4) + data];
+			break;
+		case 4:
+			s = ALU.SLA[data];
+			break;
+		case 5:
+			s = ALU.SRA[data];
+			break;
+		case 6:
+			s = ALU.SWAP[data];
+			break;
+		default:
+			s = ALU.SRL[data];
+			break;
+		}
+		
+		cpu.setF(s & 0xFF);
+		set(cpu, memory, r, s >> 8);
+		cycles(cpu, r == HL_INDIRECT ? 4 : 2);
+	}
+	
+	/*
+	 * BIT n,r / SET n,r / RES n,r
+	 */
+	protected static final void testBit(CPU cpu, Memory memory, int n, int r)
+	{
+		int data = get(cpu, memory, r);
+		
+		cpu.setF((cpu.getF() & C_FLAG) + H_FLAG + ((data & (1 << n)) == 0 ? Z_FLAG : 0));
+		cycles(cpu, r == HL_INDIRECT ? 3 : 2);
+	}
+	
+	protected static final void setBit(CPU cpu, Memory memory, int n, int r)
+	{
+		set(cpu, memory, r, get(cpu, memory, r) | (1 << n));
+		cycles(cpu, r == HL_INDIRECT ? 4 : 2);
+	}
+	
+	protected static final void resetBit(CPU cpu, Memory memory, int n, int r)
+	{
+		set(cpu, memory, r, get(cpu, memory, r) & ~(1 << n));
+		cycles(cpu, r == HL_INDIRECT ? 4 : 2);
+	}
+	
+	/*
+	 * JP cc,nnnn / JR cc,nn / JP (HL)
+	 */
+	protected static final void jump(CPU cpu, int cc, int address)
+	{
+		if (condition(cpu, cc)) {
+			int from = cpu.getPC();
+			
+			cpu.setPC(address);
+			cycles(cpu, 4);
+			
+			if (address < from)
+				cpu.idle(address);
+		}
+		else {
+			cycles(cpu, 3);
+		}
+	}
+	
+	protected static final void jumpRelative(CPU cpu, int cc, int offset)
+	{
+		if (condition(cpu, cc)) {
+			cpu.setPC((cpu.getPC() + (byte) offset) & 0xFFFF);
+			cycles(cpu, 3);
+			
+			if ((byte) offset < 0)
+				cpu.idle(cpu.getPC());
+		}
+		else {
+			cycles(cpu, 2);
+		}
+	}
+	
+	protected static final void jumpHL(CPU cpu)
+	{
+		cpu.setPC(cpu.getHL());
+		cycles(cpu, 1);
+	}
+	
+	/*
+	 * CALL cc,nnnn / RST nn
+	 */
+	protected static final void call(CPU cpu, Memory memory, int cc, int address)
+	{
+		if (condition(cpu, cc)) {
+			call(cpu, memory, address);
+			cycles(cpu, 6);
+		}
+		else {
+			cycles(cpu, 3);
+		}
+	}
+	
+	protected static final void restart(CPU cpu, Memory memory, int address)
+	{
+		call(cpu, memory, address);
+		cycles(cpu, 4);
+	}
+	
+	private static final void call(CPU cpu, Memory memory, int address)
+	{
+		int pc = cpu.getPC();
+		
+		push(cpu, memory, pc >> 8);
+		push(cpu, memory, pc & 0xFF);
+		cpu.setPC(address);
+	}
+	
+	/*
+	 * RET / RET cc
+	 */
+	protected static final void ret(CPU cpu, Memory memory, int cc)
+	{
+		if (cc == CC_ALWAYS) {
+			ret(cpu, memory);
+			cycles(cpu, 4);
+		}
+		else if (condition(cpu, cc)) {
+			ret(cpu, memory);
+			cycles(cpu, 5);
+		}
+		else {
+			cycles(cpu, 2);
+		}
+	}
+	
+	private static final void ret(CPU cpu, Memory memory)
+	{
+		int lo = pop(cpu, memory);
+		int hi = pop(cpu, memory);
+		
+		cpu.setPC((hi << 8) + lo);
+	}
+}
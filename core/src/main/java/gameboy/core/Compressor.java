@@ -0,0 +1,201 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * LZ Compressor
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+public final class Compressor {
+	/*
+	 * Match Limits (shortest match worth a sequence, farthest 16-bit offset)
+	 */
+	private static final int MIN_MATCH = 4;
+	private static final int MAX_OFFSET = 0xFFFF;
+	
+	/*
+	 * Hash Table (last position plus one of each 4-byte sequence, 0 = none)
+	 */
+	private static final int HASH_BITS = 12;
+	
+	private int[] table = new int[1 << HASH_BITS];
+	
+	public static final int getMaxSize(int length)
+	{
+		// incompressible data grows by one length byte every 255 literals
+		return length + length / 255 + 16;
+	}
+	
+	/*
+	 * Compression (sequences of token, literals, 16-bit offset and match;
+	 * the token holds both lengths in a nibble, 15 = more length bytes follow)
+	 */
+	public final int compress(byte[] source, int sourceOffset, int length, byte[] target, int targetOffset)
+	{
+		for (int index = 0; index < table.length; index++)
+			table[index] = 0;
+		
+		int end = sourceOffset + length;
+		int anchor = sourceOffset;
+		int position = sourceOffset;
+		int output = targetOffset;
+		
+		while (position <= end - MIN_MATCH) {
+			int sequence = getInt(source, position);
+			int hash = (sequence * 0x9E3779B1) >>> (32 - HASH_BITS);
+			int candidate = table[hash] - 1;
+			
+			table[hash] = position + 1;
+			
+			if (candidate >= sourceOffset && position - candidate <= MAX_OFFSET && getInt(source, candidate) == sequence) {
+				int match = MIN_MATCH;
+				
+				while (position + match < end && source[candidate + match] == source[position + match])
+					match++;
+				
+				output = putLiterals(source, anchor, position - anchor, match - MIN_MATCH, target, output);
+				
+				target[output++] = (byte) (position - candidate);
+				target[output++] = (byte) ((position - candidate) >> 8);
+				
+				output = putLength(match - MIN_MATCH, target, output);
+				
+				position += match;
+				anchor = position;
+			}
+			else {
+				position++;
+			}
+		}
+		
+		// the last sequence has no match, the decoder stops once the output is full
+		output = putLiterals(source, anchor, end - anchor, 0, target, output);
+		
+		return output - targetOffset;
+	}
+	
+	public static final void decompress(byte[] source, int sourceOffset, int sourceLength, byte[] target, int targetOffset, int length)
+	{
+		int input = sourceOffset;
+		int inputEnd = sourceOffset + sourceLength;
+		int output = targetOffset;
+		int end = targetOffset + length;
+		
+		while (true) {
+			if (input >= inputEnd)
+				throw new RuntimeException("Compressed data is truncated");
+			
+			int token = source[input++] & 0xFF;
+			int literals = token >> 4;
+			
+			if (literals == 15) {
+				int count;
+				
+				do {
+					if (input >= inputEnd)
+						throw new RuntimeException("Compressed data is truncated");
+					
+					count = source[input++] & 0xFF;
+					literals += count;
+				} while (count == 255);
+			}
+			
+			if (literals > inputEnd - input || literals > end - output)
+				throw new RuntimeException("Compressed data is corrupted");
+			
+			System.arraycopy(source, input, target, output, literals);
+			input += literals;
+			output += literals;
+			
+			if (output == end)
+				break;
+			
+			if (inputEnd - input < 2)
+				throw new RuntimeException("Compressed data is truncated");
+			
+			int offset = (source[input] & 0xFF) + ((source[input + 1] & 0xFF) << 8);
+			input += 2;
+			
+			int match = token & 0x0F;
+			
+			if (match == 15) {
+				int count;
+				
+				do {
+					if (input >= inputEnd)
+						throw new RuntimeException("Compressed data is truncated");
+					
+					count = source[input++] & 0xFF;
+					match += count;
+				} while (count == 255);
+			}
+			
+			match += MIN_MATCH;
+			
+			if (offset == 0 || offset > output - targetOffset || match > end - output)
+				throw new RuntimeException("Compressed data is corrupted");
+			
+			// the match may overlap the bytes it produces (runs), so it is copied forward
+			for (int index = 0; index < match; index++)
+				target[output + index] = target[output + index - offset];
+			
+			output += match;
+		}
+		
+		if (input != inputEnd)
+			throw new RuntimeException("Compressed data is corrupted");
+	}
+	
+	private static final int putLiterals(byte[] source, int offset, int literals, int match, byte[] target, int output)
+	{
+		target[output++] = (byte) ((Math.min(literals, 15) << 4) + Math.min(match, 15));
+		
+		if (literals >= 15)
+			output = putCount(literals - 15, target, output);
+		
+		System.arraycopy(source, offset, target, output, literals);
+		
+		return output + literals;
+	}
+	
+	private static final int putLength(int match, byte[] target, int output)
+	{
+		if (match >= 15)
+			output = putCount(match - 15, target, output);
+		
+		return output;
+	}
+	
+	private static final int putCount(int count, byte[] target, int output)
+	{
+		while (count >= 255) {
+			target[output++] = (byte) 255;
+			count -= 255;
+		}
+		
+		target[output++] = (byte) count;
+		
+		return output;
+	}
+	
+	private static final int getInt(byte[] source, int offset)
+	{
+		return (source[offset] & 0xFF) + ((source[offset + 1] & 0xFF) << 8) +
+			((source[offset + 2] & 0xFF) << 16) + ((source[offset + 3] & 0xFF) << 24);
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Emulated Clock
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+import gameboy.core.driver.ClockDriver;
+
+public final class EmulatedClock implements ClockDriver {
+	/*
+	 * Gameboy Clock Speed (1048576 Hz)
+	 */
+	private static final int GAMEBOY_CLOCK_SHIFT = 20;
+	
+	/*
+	 * Real Time Clock
+	 */
+	private ClockDriver driver;
+	
+	/*
+	 * Emulated Time (seconds since the epoch at reset plus the cycles run since)
+	 */
+	private Scheduler scheduler;
+	private CPU cpu;
+	private boolean emulated;
+	private int base;
+	
+	public EmulatedClock(ClockDriver driver, Scheduler scheduler, CPU cpu)
+	{
+		this.driver = driver;
+		this.scheduler = scheduler;
+		this.cpu = cpu;
+	}
+	
+	public EmulatedClock(EmulatedClock clock, Scheduler scheduler, CPU cpu)
+	{
+		this(clock.driver, scheduler, cpu);
+		
+		emulated = clock.emulated;
+		base = clock.base;
+	}
+	
+	public final ClockDriver getDriver()
+	{
+		return driver;
+	}
+	
+	public final boolean isEmulated()
+	{
+		return emulated;
+	}
+	
+	public final void setEmulated(boolean emulated, int base)
+	{
+		this.emulated = emulated;
+		this.base = base;
+	}
+	
+	public final long getCycles()
+	{
+		// the CPU runs up to the scheduler time and carries its overshoot as debt
+		return scheduler.getTime() - cpu.getCycles();
+	}
+	
+	public final int getTime()
+	{
+		if (emulated)
+			return base + (int) (getCycles() >> GAMEBOY_CLOCK_SHIFT);
+		
+		return driver.getTime();
+	}
+}
@@ -0,0 +1,1507 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Gameboy Scheduler and Memory Mapper
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+import gameboy.core.cartridge.BankMapper;
+import gameboy.core.driver.ClockDriver;
+import gameboy.core.driver.StoreDriver;
+import gameboy.core.driver.JoypadDriver;
+import gameboy.core.driver.SoundDriver;
+import gameboy.core.driver.VideoDriver;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class GameBoy implements Memory, BankMapper {
+	/*
+	 * Registered Symbol
+	 */
+	private static final byte REGISTERED_BITMAP[] = {
+		(byte) 0x3C, (byte) 0x42, (byte) 0xB9, (byte) 0xA5, (byte) 0xB9, (byte) 0xA5, (byte) 0x42, (byte) 0x3C
+	};
+	
+	/*
+	 * Save State Version (bumped whenever the layout changes)
+	 */
+	public static final int STATE_VERSION = 3;
+	
+	/*
+	 * Save State File Chunk Versions (each chunk has its own, CPU and TIMR keep
+	 * theirs with their registers; 2 was once shared by all)
+	 */
+	private static final int SCHEDULER_VERSION = 2;
+	private static final int INTERRUPT_VERSION = 2;
+	private static final int RAM_VERSION = 2;
+	private static final int CARTRIDGE_VERSION = 2;
+	private static final int SERIAL_VERSION = 2;
+	private static final int JOYPAD_VERSION = 2;
+	private static final int VIDEO_VERSION = 2;
+	private static final int SOUND_VERSION = 2;
+	
+	/*
+	 * Maximum Run-Ahead (frames)
+	 */
+	public static final int MAX_RUN_AHEAD = 2;
+		
+	private PageTable pageTable;
+	private RAM ram;
+	private Cartridge cartridge;
+	private Interrupt interrupt;
+	private CPU cpu;
+	private Serial serial;
+	private Timer timer;
+	private Joypad joypad;
+	private Video video;
+	private Sound sound;
+	
+	/*
+	 * Event Scheduler
+	 */
+	private Scheduler scheduler;
+	
+	/*
+	 * Clock (real time, or emulated time while a movie runs)
+	 */
+	private EmulatedClock clock;
+	
+	/*
+	 * Input Movie (null when neither recording nor playing)
+	 */
+	private JoypadDriver joypadDriver;
+	private Movie movie;
+	private ByteBuffer keyframeState;
+	
+	/*
+	 * State Arena (every memory at a fixed offset, a forked machine reads the
+	 * shared arena until it writes and then copies the page it writes)
+	 */
+	private byte[] arena;
+	private byte[] sharedArena;
+	private boolean[] ownedPages;
+	private int sharedPages;
+	
+	/*
+	 * External RAM Bank (null when unmapped)
+	 */
+	private byte[] externalRAM;
+	private int externalRAMOffset;
+	
+	/*
+	 * Device Time (cycle each device has been emulated up to)
+	 */
+	private long[] updated = new long[Scheduler.DEVICES];
+	
+	/*
+	 * Rewind Buffer (a snapshot every interval frames, null when disabled)
+	 */
+	private Rewind rewind;
+	private int rewindInterval = 1;
+	private int rewindFrames;
+	
+	/*
+	 * Run-Ahead (hidden frames emulated and shown in place of the real one)
+	 */
+	private int runAhead;
+	private ByteBuffer runAheadState;
+	
+	/*
+	 * State Hash (the bus marks the arena pages it writes)
+	 */
+	private StateHash stateHash;
+	private boolean[] dirtyPages;
+	
+	/*
+	 * Save State File Buffers (allocated on first use)
+	 */
+	private StateFile stateFile;
+	private ByteBuffer liveState;
+	
+	/*
+	 * Last Completed Frame
+	 */
+	private int frameCount;
+	
+	/*
+	 * Presented Frames (the real timeline only, hidden run-ahead frames are not counted)
+	 */
+	private int presentedFrames;
+	
+	/*
+	 * Page Table Cache
+	 */
+	private byte[][] readPages;
+	private byte[][] writePages;
+	private int[] readOffsets;
+	private int[] writeOffsets;
+	
+	public GameBoy(VideoDriver videoDriver, SoundDriver soundDriver, JoypadDriver joypadDriver, StoreDriver storeDriver, ClockDriver clockDriver)
+	{
+		pageTable = new PageTable();
+		arena = new byte[Arena.getSize(0)];
+		stateHash = new StateHash(arena.length);
+		dirtyPages = stateHash.getDirtyPages();
+		ram = new RAM(arena);
+		interrupt = new Interrupt();
+		cpu = new CPU(interrupt, this, pageTable);
+		scheduler = new Scheduler();
+		clock = new EmulatedClock(clockDriver, scheduler, cpu);
+		cartridge = new Cartridge(storeDriver, clock, this);
+		serial = new Serial(interrupt);
+		timer = new Timer(interrupt);
+		joypad = new Joypad(joypadDriver, interrupt);
+		video = new Video(videoDriver, interrupt, this, arena);
+		sound = new Sound(soundDriver, arena);
+		
+		this.joypadDriver = joypadDriver;
+		
+		readPages = pageTable.getReadPages();
+		writePages = pageTable.getWritePages();
+		readOffsets = pageTable.getReadOffsets();
+		writeOffsets = pageTable.getWriteOffsets();
+	}
+	
+	private GameBoy(GameBoy parent, JoypadDriver joypadDriver)
+	{
+		// a fork of a fork shares one whole arena, a parent that copied pages completes its own
+		if (parent.arena != parent.sharedArena)
+			parent.unshare();
+		
+		arena = parent.arena;
+		
+		stateHash = new StateHash(parent.stateHash);
+		dirtyPages = stateHash.getDirtyPages();
+		
+		share(arena);
+		
+		pageTable = new PageTable();
+		ram = new RAM(parent.ram);
+		interrupt = new Interrupt();
+		cpu = new CPU(interrupt, this, pageTable);
+		scheduler = new Scheduler();
+		clock = new EmulatedClock(parent.clock, scheduler, cpu);
+		cartridge = new Cartridge(parent.cartridge, clock, this);
+		serial = new Serial(interrupt);
+		timer = new Timer(interrupt);
+		joypad = new Joypad(joypadDriver, interrupt);
+		video = new Video(parent.video, interrupt, this);
+		sound = new Sound(parent.sound);
+		
+		this.joypadDriver = joypadDriver;
+		
+		readPages = pageTable.getReadPages();
+		writePages = pageTable.getWritePages();
+		readOffsets = pageTable.getReadOffsets();
+		writeOffsets = pageTable.getWriteOffsets();
+		
+		// the small devices are copied, the memories are shared until written
+		int size = scheduler.getStateSize() + cpu.getStateSize() + interrupt.getStateSize() +
+			serial.getStateSize() + timer.getStateSize() + joypad.getStateSize() + sound.getStateSize();
+		
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		
+		parent.scheduler.saveState(buffer);
+		parent.cpu.saveState(buffer);
+		parent.interrupt.saveState(buffer);
+		parent.serial.saveState(buffer);
+		parent.timer.saveState(buffer);
+		parent.joypad.saveState(buffer);
+		parent.sound.saveState(buffer);
+		
+		buffer.flip();
+		
+		scheduler.loadState(buffer);
+		cpu.loadState(buffer);
+		interrupt.loadState(buffer);
+		serial.loadState(buffer);
+		timer.loadState(buffer);
+		joypad.loadState(buffer);
+		sound.loadState(buffer);
+		
+		System.arraycopy(parent.updated, 0, updated, 0, Scheduler.DEVICES);
+		
+		frameCount = parent.frameCount;
+		presentedFrames = parent.presentedFrames;
+		
+		cpu.setEngine(parent.cpu.getEngine());
+		cpu.setTableALU(parent.cpu.isTableALU());
+		cpu.setSwitchDispatch(parent.cpu.isSwitchDispatch());
+		cpu.setROM(cartridge.getROM());
+		cpu.share(parent.cpu);
+		
+		mapMemory();
+		
+		// a fork is headless, it is stepped and inspected by its owner
+		video.setRendering(false);
+		sound.setMuted(true);
+		
+		parent.share(arena);
+		parent.mapVideoRAM();
+		parent.mapWorkRAM();
+		parent.mapExternalRAM();
+	}
+	
+	/*
+	 * Emulated Time (cycles since reset, emulate() always stops on the cycle)
+	 */
+	public final long getTime()
+	{
+		return scheduler.getTime();
+	}
+	
+	/*
+	 * Fork (a copy-on-write clone of the running machine)
+	 */
+	public final GameBoy fork(JoypadDriver joypadDriver)
+	{
+		return new GameBoy(this, joypadDriver);
+	}
+
+	public final Cartridge getCartridge()
+	{
+		return cartridge;
+	}
+	
+	public final CPU getCPU()
+	{
+		return cpu;
+	}
+	
+	public final int getFrameSkip()
+	{
+		return video.getFrameSkip();		
+	}
+
+	public final void setFrameSkip(int frameSkip)
+	{
+		video.setFrameSkip(frameSkip);
+	}
+	
+	public final int getRewindBudget()
+	{
+		return rewind != null ? rewind.getBudget() : 0;
+	}
+	
+	public final void setRewindBudget(int budget)
+	{
+		rewind = budget > 0 ? new Rewind(budget) : null;
+		rewindFrames = 0;
+		frameCount = video.getFrameCount();
+	}
+	
+	public final int getRewindInterval()
+	{
+		return rewindInterval;
+	}
+	
+	public final void setRewindInterval(int rewindInterval)
+	{
+		if (rewindInterval < 1)
+			throw new RuntimeException("Invalid rewind interval");
+		
+		this.rewindInterval = rewindInterval;
+	}
+	
+	public final int getRunAhead()
+	{
+		return runAhead;
+	}
+	
+	public final void setRunAhead(int runAhead)
+	{
+		if (runAhead < 0 || runAhead > MAX_RUN_AHEAD)
+			throw new RuntimeException("Invalid run-ahead");
+		
+		this.runAhead = runAhead;
+		
+		// with run-ahead the real frames are never shown
+		video.setRendering(runAhead == 0);
+	}
+	
+	public final boolean rewind()
+	{
+		if (rewind == null || !rewind.restore(this))
+			return false;
+		
+		rewindFrames = 0;
+		
+		return true;
+	}
+	
+	public final void load(String cartridgeName)
+	{
+		unshare();
+		
+		cartridge.load(cartridgeName);
+		
+		// the cartridge RAM joins the arena after the fixed regions
+		byte[] arena = new byte[Arena.getSize(cartridge.getRAMLength())];
+		
+		System.arraycopy(this.arena, 0, arena, 0, Arena.CARTRIDGE_RAM);
+		
+		setArena(arena);
+		
+		// a save state can be loaded straight away, without a reset first
+		cpu.setROM(cartridge.getROM());
+		
+		mapMemory();
+	}
+	
+	public final void save(String cartridgeName)
+	{
+		unshare();
+		
+		cartridge.save(cartridgeName);
+	}
+	
+	public final void start()
+	{
+		sound.start();
+	}
+	
+	public final void stop()
+	{
+		sound.stop();
+	}
+
+	public final void reset()
+	{
+		unshare();
+		
+		pageTable.reset();
+		
+		ram.reset();
+		cartridge.reset();
+		interrupt.reset();
+		cpu.reset();
+		serial.reset();
+		timer.reset();
+		joypad.reset();
+		video.reset();
+		sound.reset();
+		
+		scheduler.reset();
+		
+		for (int device = 0; device < Scheduler.DEVICES; device++) {
+			updated[device] = 0;
+			schedule(device);
+		}
+		
+		cpu.setROM(cartridge.getROM());
+		
+		mapMemory();
+		
+		stateHash.invalidate();
+		
+		if (rewind != null)
+			rewind.reset();
+		
+		rewindFrames = 0;
+		frameCount = video.getFrameCount();
+		
+		drawLogo();
+	}
+
+	/*
+	 * Save State (the caller owns the buffer, nothing is allocated here)
+	 */
+	public final int getStateSize()
+	{
+		int size = 4 + arena.length + scheduler.getStateSize() + 8 * Scheduler.DEVICES;
+		
+		size += cpu.getStateSize();
+		size += interrupt.getStateSize();
+		size += cartridge.getStateSize();
+		size += serial.getStateSize();
+		size += timer.getStateSize();
+		size += joypad.getStateSize();
+		size += video.getStateSize();
+		size += sound.getStateSize();
+		
+		return size;
+	}
+	
+	public final void saveState(ByteBuffer buffer)
+	{
+		buffer.putInt(STATE_VERSION);
+		
+		// the memories are one bulk copy, the registers follow
+		putArena(buffer, 0, arena.length);
+		
+		scheduler.saveState(buffer);
+		
+		for (int device = 0; device < Scheduler.DEVICES; device++)
+			buffer.putLong(updated[device]);
+		
+		cpu.saveState(buffer);
+		interrupt.saveState(buffer);
+		cartridge.saveState(buffer);
+		serial.saveState(buffer);
+		timer.saveState(buffer);
+		joypad.saveState(buffer);
+		video.saveState(buffer);
+		sound.saveState(buffer);
+	}
+	
+	public final void loadState(ByteBuffer buffer)
+	{
+		if (buffer.getInt() != STATE_VERSION)
+			throw new RuntimeException("Unsupported save state version");
+		
+		unshare();
+		
+		buffer.get(arena);
+		stateHash.invalidate();
+		
+		scheduler.loadState(buffer);
+		
+		for (int device = 0; device < Scheduler.DEVICES; device++)
+			updated[device] = buffer.getLong();
+		
+		cpu.loadState(buffer);
+		interrupt.loadState(buffer);
+		cartridge.loadState(buffer);
+		serial.loadState(buffer);
+		timer.loadState(buffer);
+		joypad.loadState(buffer);
+		video.loadState(buffer);
+		sound.loadState(buffer);
+	}
+	
+	/*
+	 * Save State Files (a compressed chunk per device, the memories come first
+	 * and the registers last so that fields can be appended, see StateFile)
+	 */
+	public final void saveState(FileChannel channel)
+	{
+		if (stateFile == null)
+			stateFile = new StateFile();
+		
+		// the file holds one point in time, every device caught up with the CPU; like
+		// after run-ahead the running machine is then put back as it was
+		int size = getStateSize();
+		
+		if (liveState == null || liveState.capacity() != size)
+			liveState = ByteBuffer.allocate(size);
+		
+		liveState.clear();
+		saveState(liveState);
+		
+		int frame = video.getFrameCount();
+		boolean rendering = video.isRendering();
+		boolean muted = sound.isMuted();
+		
+		video.setRendering(false);
+		sound.setMuted(true);
+		joypad.setAhead(true);
+		
+		settle();
+		
+		video.setRendering(rendering);
+		sound.setMuted(muted);
+		joypad.setAhead(false);
+		
+		// an input change the catching up peeked at is still owed to the running machine
+		boolean raised = joypad.isRaised();
+		
+		try {
+			stateFile.begin(getCartridgeChecksum(), getStateSize());
+			
+			ByteBuffer chunk = stateFile.chunk(StateFile.SCHEDULER, SCHEDULER_VERSION, 8 + 8 * Scheduler.DEVICES);
+			chunk.putLong(scheduler.getTime());
+			
+			for (int device = 0; device < Scheduler.DEVICES; device++)
+				chunk.putLong(scheduler.getEvent(device));
+			
+			cpu.saveRegisters(stateFile.chunk(StateFile.CPU, CPU.REGISTERS_VERSION, cpu.getRegistersSize()));
+			interrupt.saveState(stateFile.chunk(StateFile.INTERRUPT, INTERRUPT_VERSION, interrupt.getStateSize()));
+			
+			chunk = stateFile.chunk(StateFile.RAM, RAM_VERSION, Arena.WRAM_SIZE + Arena.HRAM_SIZE);
+			putArena(chunk, Arena.WRAM, Arena.WRAM_SIZE);
+			putArena(chunk, Arena.HRAM, Arena.HRAM_SIZE);
+			
+			chunk = stateFile.chunk(StateFile.CARTRIDGE, CARTRIDGE_VERSION, cartridge.getRAMLength() + cartridge.getStateSize());
+			putArena(chunk, Arena.CARTRIDGE_RAM, cartridge.getRAMLength());
+			cartridge.saveState(chunk);
+			
+			serial.saveState(stateFile.chunk(StateFile.SERIAL, SERIAL_VERSION, serial.getStateSize()));
+			timer.saveRegisters(stateFile.chunk(StateFile.TIMER, Timer.REGISTERS_VERSION, timer.getRegistersSize()));
+			joypad.saveState(stateFile.chunk(StateFile.JOYPAD, JOYPAD_VERSION, joypad.getStateSize()));
+			
+			chunk = stateFile.chunk(StateFile.VIDEO, VIDEO_VERSION, Arena.VRAM_SIZE + Arena.OAM_SIZE + video.getStateSize());
+			putArena(chunk, Arena.VRAM, Arena.VRAM_SIZE);
+			putArena(chunk, Arena.OAM, Arena.OAM_SIZE);
+			video.saveState(chunk);
+			
+			chunk = stateFile.chunk(StateFile.SOUND, SOUND_VERSION, Arena.WAVE_SIZE + sound.getStateSize());
+			putArena(chunk, Arena.WAVE, Arena.WAVE_SIZE);
+			sound.saveState(chunk);
+			
+			stateFile.write(channel);
+		}
+		finally {
+			liveState.clear();
+			loadState(liveState);
+			
+			joypad.setRaised(raised);
+			
+			// a frame the catching up completed is not one more for the running machine
+			frameCount += video.getFrameCount() - frame;
+		}
+	}
+	
+	public final void loadState(FileChannel channel)
+	{
+		if (stateFile == null)
+			stateFile = new StateFile();
+		
+		stateFile.read(channel);
+		
+		if (stateFile.getCartridge() != getCartridgeChecksum())
+			throw new RuntimeException("Save state is for another cartridge");
+		
+		// every chunk is checked before the machine is touched
+		stateFile.checkVersion(StateFile.SCHEDULER, SCHEDULER_VERSION);
+		stateFile.checkVersion(StateFile.CPU, CPU.REGISTERS_VERSION);
+		stateFile.checkVersion(StateFile.INTERRUPT, INTERRUPT_VERSION);
+		stateFile.checkVersion(StateFile.RAM, RAM_VERSION);
+		stateFile.checkVersion(StateFile.CARTRIDGE, CARTRIDGE_VERSION);
+		stateFile.checkVersion(StateFile.SERIAL, SERIAL_VERSION);
+		stateFile.checkVersion(StateFile.TIMER, Timer.REGISTERS_VERSION);
+		stateFile.checkVersion(StateFile.JOYPAD, JOYPAD_VERSION);
+		stateFile.checkVersion(StateFile.VIDEO, VIDEO_VERSION);
+		stateFile.checkVersion(StateFile.SOUND, SOUND_VERSION);
+		
+		unshare();
+		
+		stateHash.invalidate();
+		
+		// the memories go in before the CPU drops the code decoded from them
+		ByteBuffer chunk = stateFile.getChunk(StateFile.RAM, Arena.WRAM_SIZE + Arena.HRAM_SIZE);
+		chunk.get(arena, Arena.WRAM, Arena.WRAM_SIZE);
+		chunk.get(arena, Arena.HRAM, Arena.HRAM_SIZE);
+		
+		chunk = stateFile.getChunk(StateFile.CARTRIDGE, cartridge.getRAMLength() + cartridge.getStateSize());
+		chunk.get(arena, Arena.CARTRIDGE_RAM, cartridge.getRAMLength());
+		cartridge.loadState(chunk);
+		
+		chunk = stateFile.getChunk(StateFile.VIDEO, Arena.VRAM_SIZE + Arena.OAM_SIZE + video.getStateSize());
+		chunk.get(arena, Arena.VRAM, Arena.VRAM_SIZE);
+		chunk.get(arena, Arena.OAM, Arena.OAM_SIZE);
+		video.loadState(chunk);
+		
+		chunk = stateFile.getChunk(StateFile.SOUND, Arena.WAVE_SIZE + sound.getStateSize());
+		chunk.get(arena, Arena.WAVE, Arena.WAVE_SIZE);
+		sound.loadState(chunk);
+		
+		// the heap is rebuilt from the event times
+		int version = stateFile.getVersion(StateFile.SCHEDULER);
+		chunk = stateFile.getChunk(StateFile.SCHEDULER, 8 + 8 * Scheduler.DEVICES);
+		
+		// version 1 had the update time of each device, then the scheduler state
+		if (version == 1) {
+			for (int device = 0; device < Scheduler.DEVICES; device++)
+				updated[device] = chunk.getLong();
+		}
+		
+		long time = chunk.getLong();
+		
+		scheduler.reset();
+		scheduler.setTime(time);
+		
+		for (int device = 0; device < Scheduler.DEVICES; device++) {
+			if (version != 1)
+				updated[device] = time;
+			
+			scheduler.schedule(device, chunk.getLong());
+		}
+		
+		cpu.loadRegisters(stateFile.getChunk(StateFile.CPU, cpu.getRegistersSize()), stateFile.getVersion(StateFile.CPU));
+		interrupt.loadState(stateFile.getChunk(StateFile.INTERRUPT, interrupt.getStateSize()));
+		serial.loadState(stateFile.getChunk(StateFile.SERIAL, serial.getStateSize()));
+		timer.loadRegisters(stateFile.getChunk(StateFile.TIMER, timer.getRegistersSize()), stateFile.getVersion(StateFile.TIMER));
+		joypad.loadState(stateFile.getChunk(StateFile.JOYPAD, joypad.getStateSize()));
+	}
+	
+	/*
+	 * State Hash (equal machines hash equal, the event times count from now)
+	 */
+	public final long getStateHash()
+	{
+		int size = 16 * Scheduler.DEVICES + cpu.getStateSize() + interrupt.getStateSize() +
+			cartridge.getStateSize() + serial.getStateSize() + timer.getStateSize() +
+			joypad.getStateSize() + video.getStateSize() + sound.getStateSize();
+		
+		ByteBuffer buffer = stateHash.getRegisters(size);
+		long time = scheduler.getTime();
+		
+		for (int device = 0; device < Scheduler.DEVICES; device++) {
+			long event = scheduler.getEvent(device);
+			
+			buffer.putLong(event != Scheduler.NEVER ? event - time : event);
+			buffer.putLong(updated[device] - time);
+		}
+		
+		cpu.saveState(buffer);
+		interrupt.saveState(buffer);
+		cartridge.saveState(buffer);
+		serial.saveState(buffer);
+		timer.saveState(buffer);
+		joypad.saveState(buffer);
+		video.saveState(buffer);
+		sound.saveState(buffer);
+		
+		// a dirty page still shared is copied before it is hashed, the last copy ends the sharing
+		for (int page = 0; page < dirtyPages.length && sharedArena != null; page++) {
+			if (dirtyPages[page] && !ownedPages[page])
+				copyPages(page << StateHash.PAGE_SHIFT, 1);
+		}
+		
+		return stateHash.hash(arena);
+	}
+	
+	/*
+	 * Input Movies (both start from reset and run on the emulated clock, the
+	 * inputs are sampled at the joypad polls so that a replay is exact)
+	 */
+	public final Movie getMovie()
+	{
+		return movie;
+	}
+	
+	public final boolean isMovieFinished()
+	{
+		return movie != null && !movie.isRecording() && scheduler.getTime() >= movie.getDuration();
+	}
+	
+	public final void recordMovie(Movie movie)
+	{
+		stopMovie();
+		
+		clock.setEmulated(true, clock.getDriver().getTime());
+		
+		reset();
+		
+		movie.record(getCartridgeChecksum(), clock.getTime(), arena, Arena.CARTRIDGE_RAM, cartridge.getRAMLength(), clock, joypadDriver);
+		
+		startMovie(movie);
+	}
+	
+	public final void playMovie(Movie movie)
+	{
+		if (movie.getCartridge() != getCartridgeChecksum())
+			throw new RuntimeException("Movie is for another cartridge");
+		
+		if (movie.getBattery().length != cartridge.getRAMLength())
+			throw new RuntimeException("Movie battery does not match the cartridge");
+		
+		stopMovie();
+		
+		restartMovie(movie);
+		
+		movie.play(clock);
+		
+		startMovie(movie);
+	}
+	
+	public final void seekMovie(long time)
+	{
+		if (movie == null || movie.isRecording())
+			throw new RuntimeException("No movie is playing");
+		
+		// start from the last keyframe before the time, unless the machine is closer
+		long now = scheduler.getTime();
+		int keyframe = movie.findKeyframe(time);
+		
+		if (now > time || (keyframe >= 0 && movie.getKeyframeTime(keyframe) > now)) {
+			if (keyframe >= 0) {
+				ByteBuffer state = getKeyframeState(movie.getKeyframeLength(keyframe));
+				
+				movie.loadKeyframe(keyframe, state.array());
+				loadState(state);
+			}
+			else {
+				restartMovie(movie);
+			}
+		}
+		
+		if (rewind != null)
+			rewind.reset();
+		
+		// the frames up to the time are never shown, keyframes are still taken
+		video.setRendering(false);
+		sound.setMuted(true);
+		
+		while (scheduler.getTime() < time) {
+			emulateSlice(time);
+			
+			if (video.getFrameCount() != frameCount) {
+				frameCount = video.getFrameCount();
+				updateMovie();
+			}
+		}
+		
+		video.setRendering(runAhead == 0);
+		sound.setMuted(false);
+		
+		rewindFrames = 0;
+		frameCount = video.getFrameCount();
+	}
+	
+	public final void stopMovie()
+	{
+		if (movie != null) {
+			if (movie.isRecording())
+				movie.setDuration(scheduler.getTime());
+			
+			movie.stop();
+			movie = null;
+			
+			joypad.setDriver(joypadDriver);
+			clock.setEmulated(false, 0);
+		}
+	}
+	
+	private final void startMovie(Movie movie)
+	{
+		this.movie = movie;
+		
+		joypad.setDriver(movie);
+	}
+	
+	private final void restartMovie(Movie movie)
+	{
+		clock.setEmulated(true, movie.getClockBase());
+		
+		reset();
+		
+		// the battery RAM the movie was recorded with
+		System.arraycopy(movie.getBattery(), 0, arena, Arena.CARTRIDGE_RAM, cartridge.getRAMLength());
+		stateHash.invalidate();
+	}
+	
+	private final void updateMovie()
+	{
+		long time = scheduler.getTime();
+		
+		if (movie.needsKeyframe(time)) {
+			ByteBuffer state = getKeyframeState(getStateSize());
+			
+			saveState(state);
+			movie.addKeyframe(time, state.array(), state.position());
+		}
+	}
+	
+	private final ByteBuffer getKeyframeState(int size)
+	{
+		if (keyframeState == null || keyframeState.capacity() < size)
+			keyframeState = ByteBuffer.allocate(size);
+		
+		keyframeState.clear();
+		keyframeState.limit(size);
+		
+		return keyframeState;
+	}
+	
+	private final int getCartridgeChecksum()
+	{
+		return (cartridge.getHeaderChecksum() << 16) + cartridge.getChecksum();
+	}
+	
+	public final void emulate(int ticks)
+	{
+		long end = scheduler.getTime() + ticks;
+		
+		while (scheduler.getTime() < end) {
+			emulateSlice(end);
+			
+			// between slices every device is up to date and the state can be captured
+			if (video.getFrameCount() != frameCount)
+				updateFrame();
+		}
+	}
+	/*
+	 * Frame Stepping (stops on the cycle LY reaches 144, or after a frame time while the LCD is off)
+	 */
+	public final int runFrame()
+	{
+		long time = scheduler.getTime();
+		int frame = video.getFrameCount();
+		
+		emulateFrame();
+		
+		// the LCD came on during the frame time, its first frame ends at V-Blank
+		while (video.getFrameCount() == frame && video.isEnabled())
+			emulateFrame();
+		
+		if (video.getFrameCount() != frameCount)
+			updateFrame();
+		
+		return (int) (scheduler.getTime() - time);
+	}
+	
+	public final long runFrames(int count)
+	{
+		long time = scheduler.getTime();
+		
+		for (int frame = 0; frame < count; frame++)
+			runFrame();
+		
+		return scheduler.getTime() - time;
+	}
+	
+	public final int getFrameCount()
+	{
+		return presentedFrames;
+	}
+	
+	public final int[] getFrameBuffer()
+	{
+		// the frame just completed, until the next one starts drawing over it
+		return video.getPixels();
+	}
+	
+	private final void emulateSlice(long end)
+	{
+		long time = Math.min(scheduler.getNextEvent(), end);
+		int count = (int) (time - scheduler.getTime());
+		
+		scheduler.setTime(time);
+		
+		// a halted CPU has nothing to do until a device raises an interrupt
+		if (cpu.isHalted() && !interrupt.isPending())
+			cpu.sleep(count);
+		else
+			cpu.emulate(count);
+		
+		while (scheduler.getNextEvent() <= time)
+			update(scheduler.getNextDevice(), time);
+	}
+	
+	private final void emulateFrame()
+	{
+		int frame = video.getFrameCount();
+		
+		// the LCD may be off, no more than a frame time is emulated then
+		long end = scheduler.getTime() + Video.FRAME_TICKS;
+		
+		while (video.getFrameCount() == frame && scheduler.getTime() < end)
+			emulateSlice(end);
+	}
+	
+	private final void updateFrame()
+	{
+		frameCount = video.getFrameCount();
+		presentedFrames++;
+		
+		if (movie != null)
+			updateMovie();
+		
+		if (rewind != null) {
+			rewind.advance();
+			
+			if (++rewindFrames >= rewindInterval) {
+				rewindFrames = 0;
+				rewind.capture(this);
+			}
+		}
+		
+		if (runAhead > 0)
+			updateRunAhead();
+	}
+	
+	private final void updateRunAhead()
+	{
+		int size = getStateSize();
+		
+		if (runAheadState == null || runAheadState.capacity() != size)
+			runAheadState = ByteBuffer.allocate(size);
+		
+		runAheadState.clear();
+		saveState(runAheadState);
+		
+		// hidden frames are silent and only the last one is drawn
+		sound.setMuted(true);
+		joypad.setAhead(true);
+		
+		for (int frame = 1; frame <= runAhead; frame++) {
+			video.setRendering(frame == runAhead);
+			emulateFrame();
+		}
+		
+		video.setRendering(false);
+		joypad.setAhead(false);
+		sound.setMuted(false);
+		
+		// an input change the hidden frames peeked at is still owed to the real timeline
+		boolean raised = joypad.isRaised();
+		
+		runAheadState.clear();
+		loadState(runAheadState);
+		
+		joypad.setRaised(raised);
+		
+		frameCount = video.getFrameCount();
+	}
+	
+	/*
+	 * Device Scheduling
+	 */
+	private final long now()
+	{
+		// the CPU runs up to the scheduler time and carries its overshoot as debt
+		return scheduler.getTime() - cpu.getCycles();
+	}
+	
+	private final void update(int device, long time)
+	{
+		long ticks = time - updated[device];
+		
+		if (ticks > 0) {
+			updated[device] = time;
+			
+			// a device left alone for longer than an int catches up in steps
+			while (ticks > Integer.MAX_VALUE) {
+				emulateDevice(device, Integer.MAX_VALUE);
+				ticks -= Integer.MAX_VALUE;
+			}
+			
+			emulateDevice(device, (int) ticks);
+		}
+		
+		schedule(device);
+	}
+	
+	private final void settle()
+	{
+		// the CPU's overshoot ends the slice, the devices are emulated up to it
+		long time = now();
+		
+		for (int device = 0; device < Scheduler.DEVICES; device++)
+			update(device, time);
+		
+		scheduler.setTime(time);
+		cpu.setCycles(0);
+	}
+	
+	private final void emulateDevice(int device, int ticks)
+	{
+		switch (device) {
+		case Scheduler.SERIAL:
+			serial.emulate(ticks);
+			break;
+		case Scheduler.TIMER:
+			timer.emulate(ticks);
+			break;
+		case Scheduler.VIDEO:
+			// only a rendering video reads the memories as it runs
+			if (sharedArena != null && video.isRendering())
+				copyPages(Arena.VRAM, Arena.OAM + Arena.OAM_SIZE);
+			
+			video.emulate(ticks);
+			break;
+		case Scheduler.SOUND:
+			if (sharedArena != null)
+				copyPages(Arena.WAVE, Arena.WAVE_SIZE);
+			
+			sound.emulate(ticks);
+			break;
+		default:
+			joypad.emulate(ticks);
+			break;
+		}
+	}
+	
+	private final void schedule(int device)
+	{
+		long time = updated[device];
+		
+		switch (device) {
+		case Scheduler.SERIAL:
+			// the serial counter only runs during a transfer
+			time = serial.isTransferring() ? time + serial.cycles() : Scheduler.NEVER;
+			break;
+		case Scheduler.TIMER:
+			// DIV needs no events, only a running TIMA can overflow
+			time = timer.isEnabled() ? time + timer.cycles() : Scheduler.NEVER;
+			break;
+		case Scheduler.VIDEO:
+			// the video counter stands still while the LCD is off
+			time = video.isEnabled() ? time + video.cycles() : Scheduler.NEVER;
+			break;
+		case Scheduler.SOUND:
+			time += sound.cycles();
+			break;
+		default:
+			time += joypad.cycles();
+			break;
+		}
+		
+		scheduler.schedule(device, time);
+	}
+	
+	public final void write(int address, int data)
+	{
+		int page = address >> 8;
+		byte[] memory = writePages[page];
+		
+		if (memory != null) {
+			int index = writeOffsets[page] + address;
+			
+			// writable pages always lie in the arena
+			memory[index] = (byte) data;
+			dirtyPages[index >> StateHash.PAGE_SHIFT] = true;
+		}
+		else {
+			// drop cached code before it is overwritten
+			if (pageTable.isWatched(page))
+				cpu.invalidate(address);
+			
+			writeHandler(address, data);
+		}
+	}
+	
+	public final int read(int address)
+	{
+		int page = address >> 8;
+		byte[] memory = readPages[page];
+		
+		if (memory != null)
+			return memory[readOffsets[page] + address] & 0xFF;
+		
+		return readHandler(address);
+	}
+	
+	/*
+	 * Bank Mapper (the CPU fetches straight from the switchable ROM bank)
+	 */
+	public final void mapROM(byte[] rom, int offset)
+	{
+		pageTable.mapROM(rom, offset);
+		
+		cpu.setROMBank(rom, offset);
+	}
+	
+	public final void mapRAM(byte[] ram, int offset)
+	{
+		externalRAM = ram;
+		externalRAMOffset = offset;
+		
+		mapExternalRAM();
+	}
+	
+	public final void unmapRAM()
+	{
+		externalRAM = null;
+		
+		pageTable.unmapRAM();
+	}
+	
+	private final void mapMemory()
+	{
+		// 0000-3FFF ROM Bank #0
+		pageTable.map(0x0000, 0x4000, cartridge.getROM(), 0x0000, false);
+		
+		mapVideoRAM();
+		mapWorkRAM();
+	}
+	
+	/*
+	 * State Arena (a shared page is mapped read-only, the first write copies it)
+	 */
+	public final byte[] getArena()
+	{
+		unshare();
+		
+		return arena;
+	}
+	
+	private final void setArena(byte[] arena)
+	{
+		if (arena.length != this.arena.length) {
+			stateHash = new StateHash(arena.length);
+			dirtyPages = stateHash.getDirtyPages();
+		}
+		
+		this.arena = arena;
+		
+		ram.setArena(arena);
+		video.setArena(arena);
+		sound.setArena(arena);
+		cartridge.setArena(arena);
+		
+		mapVideoRAM();
+		mapWorkRAM();
+	}
+	
+	private final void share(byte[] arena)
+	{
+		sharedArena = arena;
+		ownedPages = new boolean[dirtyPages.length];
+		sharedPages = ownedPages.length;
+	}
+	
+	private final void unshare()
+	{
+		if (sharedArena != null)
+			copyPages(0, arena.length);
+	}
+	
+	private final void unshare(int address)
+	{
+		// the arena pages behind a bus address, the other registers have none
+		if (address >= 0x8000 && address <= 0x9FFF) {
+			copyPages(Arena.VRAM + (address & 0x1F00), PageTable.PAGE_SIZE);
+		}
+		else if (address >= 0xA000 && address <= 0xBFFF) {
+			if (externalRAM != null)
+				copyPages(externalRAMOffset + (address & 0x1F00), PageTable.PAGE_SIZE);
+			else if (cartridge.getRAMLength() > 0)
+				copyPages(Arena.CARTRIDGE_RAM, cartridge.getRAMLength());
+		}
+		else if (address >= 0xC000 && address <= 0xFDFF) {
+			copyPages(Arena.WRAM + (address & 0x1F00), PageTable.PAGE_SIZE);
+		}
+		else if (address >= 0xFE00 && address <= 0xFEFF || address == Video.DMA) {
+			copyPages(Arena.OAM, Arena.OAM_SIZE);
+		}
+		else if (address >= 0xFF10 && address <= 0xFF3F) {
+			copyPages(Arena.WAVE, Arena.WAVE_SIZE);
+		}
+		else if (address >= 0xFF80 && address <= 0xFFFE) {
+			copyPages(Arena.HRAM + (address & 0x7F), 1);
+		}
+	}
+	
+	private final void copyPages(int offset, int length)
+	{
+		// the first copied page gives the machine an arena of its own
+		if (arena == sharedArena) {
+			arena = new byte[sharedArena.length];
+			
+			ram.setArena(arena);
+			video.setArena(arena);
+			sound.setArena(arena);
+			cartridge.mapArena(arena);
+		}
+		
+		for (int page = offset >> StateHash.PAGE_SHIFT; page <= (offset + length - 1) >> StateHash.PAGE_SHIFT; page++) {
+			if (!ownedPages[page]) {
+				int index = page << StateHash.PAGE_SHIFT;
+				
+				System.arraycopy(sharedArena, index, arena, index, Math.min(StateHash.PAGE_SIZE, arena.length - index));
+				
+				ownedPages[page] = true;
+				sharedPages--;
+			}
+		}
+		
+		unsharePages(0x8000, 0x2000, Arena.VRAM);
+		unsharePages(0xC000, 0x2000, Arena.WRAM);
+		unsharePages(0xE000, 0x1E00, Arena.WRAM);
+		
+		if (externalRAM != null)
+			unsharePages(0xA000, 0x2000, externalRAMOffset);
+		
+		if (sharedPages == 0) {
+			sharedArena = null;
+			ownedPages = null;
+		}
+	}
+	
+	private final void unsharePages(int address, int size, int offset)
+	{
+		// a copied page is remapped writable, the code cached on it stays watched
+		for (int page = address >> 8; page < (address + size) >> 8; page++) {
+			int index = offset + (page << 8) - address;
+			
+			if (readPages[page] == sharedArena && !isShared(index)) {
+				boolean watched = pageTable.isWatched(page);
+				
+				pageTable.map(page << 8, PageTable.PAGE_SIZE, arena, index, true);
+				
+				if (watched)
+					pageTable.watch(page);
+			}
+		}
+	}
+	
+	private final boolean isShared(int index)
+	{
+		// a bus page may straddle two arena pages
+		return sharedArena != null && !(ownedPages[index >> StateHash.PAGE_SHIFT] &&
+			ownedPages[(index + PageTable.PAGE_SIZE - 1) >> StateHash.PAGE_SHIFT]);
+	}
+	
+	private final void mapArena(int address, int size, int offset)
+	{
+		if (sharedArena == null) {
+			pageTable.map(address, size, arena, offset, true);
+		}
+		else {
+			for (int page = address; page < address + size; page += PageTable.PAGE_SIZE) {
+				int index = offset + page - address;
+				
+				if (isShared(index))
+					pageTable.map(page, PageTable.PAGE_SIZE, sharedArena, index, false);
+				else
+					pageTable.map(page, PageTable.PAGE_SIZE, arena, index, true);
+			}
+		}
+	}
+	
+	private final void putArena(ByteBuffer buffer, int offset, int length)
+	{
+		// the pages still shared are read from the shared arena
+		int end = offset + length;
+		
+		while (offset < end) {
+			int page = offset >> StateHash.PAGE_SHIFT;
+			int next = Math.min(end, (page + 1) << StateHash.PAGE_SHIFT);
+			
+			buffer.put(sharedArena != null && !ownedPages[page] ? sharedArena : arena, offset, next - offset);
+			offset = next;
+		}
+	}
+	
+	private final void mapVideoRAM()
+	{
+		// 8000-9FFF Video RAM
+		mapArena(0x8000, 0x2000, Arena.VRAM);
+	}
+	
+	private final void mapWorkRAM()
+	{
+		// remapping drops the watched pages, the code blocks on them go too
+		cpu.flushRAM();
+		
+		// C000-DFFF Work RAM
+		mapArena(0xC000, 0x2000, Arena.WRAM);
+		
+		// E000-FDFF Echo RAM
+		mapArena(0xE000, 0x1E00, Arena.WRAM);
+	}
+	
+	private final void mapExternalRAM()
+	{
+		// A000-BFFF External RAM Bank
+		if (externalRAM != null)
+			mapArena(0xA000, 0x2000, externalRAMOffset);
+	}
+
+	private final void writeHandler(int address, int data)
+	{
+		// a shared page is mapped read-only, its first write lands here
+		if (sharedArena != null)
+			unshare(address);
+		
+		if (address <= 0x7FFF) {
+			// 0000-7FFF ROM Bank
+			cartridge.write(address, data);
+		}
+		else if (address <= 0x9FFF) {
+			// 8000-9FFF Video RAM
+			video.write(address, data);
+			dirtyPages[(Arena.VRAM + address - 0x8000) >> StateHash.PAGE_SHIFT] = true;
+		}
+		else if (address <= 0xBFFF) {
+			// A000-BFFF External RAM
+			cartridge.write(address, data);
+			
+			if (externalRAM != null)
+				dirtyPages[(externalRAMOffset + address - 0xA000) >> StateHash.PAGE_SHIFT] = true;
+			else
+				stateHash.invalidate(Arena.CARTRIDGE_RAM, cartridge.getRAMLength());
+		}
+		else if (address <= 0xFDFF) {
+			// C000-FDFF Work RAM
+			ram.write(address, data);
+			dirtyPages[(Arena.WRAM + (address & 0x1FFF)) >> StateHash.PAGE_SHIFT] = true;
+		}
+		else if (address <= 0xFEFF) {
+			// FE00-FEFF OAM
+			video.write(address, data);
+			dirtyPages[Arena.OAM >> StateHash.PAGE_SHIFT] = true;
+		}
+		else if (address == 0xFF00) {
+			// FF00-FF00 Joypad
+			update(Scheduler.JOYPAD, now());
+			joypad.write(address, data);
+			schedule(Scheduler.JOYPAD);
+		}
+		else if (address >= 0xFF01 && address <= 0xFF02) {
+			// FF01-FF02 Serial
+			update(Scheduler.SERIAL, now());
+			serial.write(address, data);
+			schedule(Scheduler.SERIAL);
+		}
+		else if (address >= 0xFF04 && address <= 0xFF07) {
+			// FF04-FF07 Timer
+			update(Scheduler.TIMER, now());
+			timer.write(address, data);
+			schedule(Scheduler.TIMER);
+		}
+		else if (address == 0xFF0F) {
+			// FF0F-FF0F Interrupt
+			interrupt.write(address, data);
+			
+			// check pending interrupts when IF is changed
+			cpu.interrupt();
+		}
+		else if (address >= 0xFF10 && address <= 0xFF3F) {
+			// FF10-FF3F Sound
+			update(Scheduler.SOUND, now());
+			sound.write(address, data);
+			schedule(Scheduler.SOUND);
+			
+			dirtyPages[Arena.WAVE >> StateHash.PAGE_SHIFT] = true;
+		}
+		else if (address >= 0xFF40 && address <= 0xFF4B) {
+			// FF40-FF4B Video
+			update(Scheduler.VIDEO, now());
+
+			video.write(address, data);
+			schedule(Scheduler.VIDEO);
+			
+			// a DMA transfer fills the OAM
+			dirtyPages[Arena.OAM >> StateHash.PAGE_SHIFT] = true;
+			
+			// check pending interrupts when STAT is changed
+			if (address == Video.STAT)
+				cpu.interrupt();
+		}
+		else if (address >= 0xFF80 && address <= 0xFFFE) {
+			// FF80-FFFE High RAM
+			ram.write(address, data);
+			dirtyPages[(Arena.HRAM + (address & 0x7F)) >> StateHash.PAGE_SHIFT] = true;
+		}
+		else if (address == 0xFFFF) {
+			// FFFF-FFFF Interrupt
+			interrupt.write(address, data);
+			
+			// check pending interrupts when IE is changed
+			cpu.interrupt();
+		}
+	}
+	
+	private final int readHandler(int address)
+	{
+		// the devices read their own arena, a shared page is copied first
+		if (sharedArena != null)
+			unshare(address);
+		
+		if (address <= 0x7FFF) {
+			// 0000-7FFF ROM Bank
+			return cartridge.read(address);
+		}
+		else if (address <= 0x9FFF) {
+			// 8000-9FFF Video RAM
+			return video.read(address);
+		}
+		else if (address <= 0xBFFF) {
+			// A000-BFFF External RAM
+			return cartridge.read(address);
+		}
+		else if (address <= 0xFDFF) {
+			// C000-FDFF Work RAM
+			return ram.read(address);
+		}
+		else if (address <= 0xFEFF) {
+			// FE00-FEFF OAM
+			return video.read(address);
+		}
+		else if (address == 0xFF00) {
+			// FF00-FF00 Joypad
+			update(Scheduler.JOYPAD, now());
+			return joypad.read(address);
+		}
+		else if (address >= 0xFF01 && address <= 0xFF02) {
+			// FF01-FF02 Serial
+			update(Scheduler.SERIAL, now());
+			return serial.read(address);
+		}
+		else if (address >= 0xFF04 && address <= 0xFF07) {
+			// FF04-FF07 Timer
+			update(Scheduler.TIMER, now());
+			return timer.read(address);
+		}
+		else if (address == 0xFF0F) {
+			// FF0F-FF0F Interrupt
+			return interrupt.read(address);
+		}
+		else if (address >= 0xFF10 && address <= 0xFF3F) {
+			// FF10-FF3F Sound
+			update(Scheduler.SOUND, now());
+			return sound.read(address);
+		}
+		else if (address >= 0xFF40 && address <= 0xFF4B) {
+			// FF40-FF4B Video
+			update(Scheduler.VIDEO, now());
+			return video.read(address);
+		}
+		else if (address >= 0xFF80 && address <= 0xFFFE) {
+			// FF80-FFFE High RAM
+			return ram.read(address);
+		}
+		else if (address == 0xFFFF) {
+			// FFFF-FFFF Interrupt
+			return interrupt.read(address);
+		}
+		else {
+			return 0xFF;
+		}
+	}
+	
+	private final void drawLogo()
+	{
+		for (int index = 0; index < 48; index++) {
+			int bits = cartridge.read(0x0104 + index);
+
+			int pattern0 = ((bits >> 0) & 0x80) +
+					       ((bits >> 1) & 0x60) +
+					       ((bits >> 2) & 0x18) +
+					       ((bits >> 3) & 0x06) +
+					       ((bits >> 4) & 0x01);
+		
+			int pattern1 = ((bits << 4) & 0x80) +
+						   ((bits << 3) & 0x60) +
+						   ((bits << 2) & 0x18) +
+						   ((bits << 1) & 0x06) +
+						   ((bits << 0) & 0x01);
+
+			video.write(0x8010 + (index << 3), pattern0);
+			video.write(0x8012 + (index << 3), pattern0);
+			
+			video.write(0x8014 + (index << 3), pattern1);
+			video.write(0x8016 + (index << 3), pattern1);
+		}
+		
+		for (int index = 0; index < 8; index++) {
+			video.write(0x8190 + (index << 1), REGISTERED_BITMAP[index]);
+		}
+		
+		for (int tile = 0; tile < 12; tile++) {
+			video.write(0x9904 + tile, tile + 1);
+			video.write(0x9924 + tile, tile + 13);
+		}
+		
+		video.write(0x9904 + 12, 25);
+	}
+}
@@ -21,6 +21,8 @@
  */
 package gameboy.core;
 
+import java.nio.ByteBuffer;
+
 public class Interrupt {
 	/*
 	 * Interrupt Registers
@@ -54,6 +56,26 @@ public class Interrupt {
 		flag = VBLANK;
 	}
 	
+	/*
+	 * Save State
+	 */
+	public final int getStateSize()
+	{
+		return 2;
+	}
+	
+	public final void saveState(ByteBuffer buffer)
+	{
+		buffer.put((byte) enable);
+		buffer.put((byte) flag);
+	}
+	
+	public final void loadState(ByteBuffer buffer)
+	{
+		enable = buffer.get() & 0xFF;
+		flag = buffer.get() & 0xFF;
+	}
+	
 	public final boolean isPending()
 	{
 		return (enable & flag) != 0;
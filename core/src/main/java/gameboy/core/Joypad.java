@@ -22,6 +22,7 @@
 package gameboy.core;
 
 import gameboy.core.driver.JoypadDriver;
+import java.nio.ByteBuffer;
 
 public class Joypad {
 	/*
@@ -56,6 +57,12 @@ public class Joypad {
 	 */
 	private JoypadDriver driver;
 	
+	/*
+	 * Input Change (kept until the real timeline has seen it, run-ahead frames only peek)
+	 */
+	private boolean raised;
+	private boolean ahead;
+	
 	public Joypad(JoypadDriver driver, Interrupt interrupt)
 	{
 		this.driver = driver;
@@ -69,21 +76,76 @@ public class Joypad {
 		joyp = 0xFF;
 		cycles = JOYPAD_CLOCK;
 	}
+	
+	/*
+	 * Save State
+	 */
+	public final int getStateSize()
+	{
+		return 1 + 4 + 1;
+	}
+	
+	public final void saveState(ByteBuffer buffer)
+	{
+		buffer.put((byte) joyp);
+		buffer.putInt(cycles);
+		buffer.put((byte) (raised ? 1 : 0));
+	}
+	
+	public final void loadState(ByteBuffer buffer)
+	{
+		joyp = buffer.get() & 0xFF;
+		cycles = buffer.getInt();
+		raised = buffer.get() != 0;
+	}
 
+	public final JoypadDriver getDriver()
+	{
+		return driver;
+	}
+	
+	public final void setDriver(JoypadDriver driver)
+	{
+		this.driver = driver;
+	}
+	
 	public int cycles()
 	{
 		return cycles;
 	}
 	
+	public final void setAhead(boolean ahead)
+	{
+		this.ahead = ahead;
+	}
+	
+	public final boolean isRaised()
+	{
+		return raised;
+	}
+	
+	public final void setRaised(boolean raised)
+	{
+		this.raised = raised;
+	}
+	
 	public final void emulate(int ticks)
 	{
 		cycles -= ticks;
 
 		if (cycles <= 0) {
 			if (driver.isRaised())
+				raised = true;
+			
+			if (raised) {
 				update();
+				
+				if (!ahead)
+					raised = false;
+			}
 			
-			cycles = JOYPAD_CLOCK;
+			// the polls keep their period however late the joypad is emulated
+			cycles += (1 - cycles / JOYPAD_CLOCK) * JOYPAD_CLOCK;
 		}
 	}
 	
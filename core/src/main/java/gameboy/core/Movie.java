@@ -0,0 +1,555 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Input Movie
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+import gameboy.core.driver.JoypadDriver;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+public final class Movie implements JoypadDriver {
+	/*
+	 * Movie File (header, packed battery RAM, the events as varints, then the
+	 * keyframe index followed by the packed keyframes)
+	 */
+	private static final int MAGIC = 0x4D47424D;		/* MGBM */
+	private static final int HEADER_SIZE = 28;
+	
+	public static final int VERSION = 2;
+	
+	/*
+	 * Default Keyframe Interval (5 seconds)
+	 */
+	public static final long KEYFRAME_INTERVAL = 300L * Video.FRAME_TICKS;
+	
+	/*
+	 * Input (buttons in the high nibble, directions in the low one, active low)
+	 */
+	private static final int RELEASED = 0xFF;
+	
+	/*
+	 * Input Events (ascending cycles, an event only where the input changed)
+	 */
+	private long[] times = new long[256];
+	private int[] inputs = new int[256];
+	private int events;
+	private long duration;
+	
+	/*
+	 * Start Conditions (the movie runs from reset with this battery RAM)
+	 */
+	private int cartridge;
+	private int clockBase;
+	private byte[] battery = new byte[0];
+	
+	/*
+	 * Keyframes (a packed save state every interval cycles, a seek starts from
+	 * the last one before its target)
+	 */
+	private long keyframeInterval = KEYFRAME_INTERVAL;
+	private long[] keyframeTimes = new long[16];
+	private int[] keyframeLengths = new int[16];
+	private byte[][] keyframes = new byte[16][];
+	private int keyframeCount;
+	private Compressor compressor;
+	private byte[] packed = new byte[0];
+	
+	/*
+	 * Attached Machine (the live driver is only sampled while recording)
+	 */
+	private EmulatedClock clock;
+	private JoypadDriver driver;
+	private boolean recording;
+	
+	public Movie()
+	{
+	}
+	
+	public final int getCartridge()
+	{
+		return cartridge;
+	}
+	
+	public final int getClockBase()
+	{
+		return clockBase;
+	}
+	
+	public final byte[] getBattery()
+	{
+		return battery;
+	}
+	
+	public final int getEvents()
+	{
+		return events;
+	}
+	
+	public final long getDuration()
+	{
+		return duration;
+	}
+	
+	public final boolean isRecording()
+	{
+		return recording;
+	}
+	
+	public final void setDuration(long duration)
+	{
+		this.duration = duration;
+	}
+	
+	/*
+	 * Recording and Playback
+	 */
+	public final void record(int cartridge, int clockBase, byte[] ram, int ramOffset, int ramLength, EmulatedClock clock, JoypadDriver driver)
+	{
+		this.cartridge = cartridge;
+		this.clockBase = clockBase;
+		this.clock = clock;
+		this.driver = driver;
+		
+		battery = new byte[ramLength];
+		System.arraycopy(ram, ramOffset, battery, 0, ramLength);
+		
+		events = 0;
+		duration = 0;
+		keyframeCount = 0;
+		recording = true;
+	}
+	
+	public final void play(EmulatedClock clock)
+	{
+		this.clock = clock;
+		
+		driver = null;
+		recording = false;
+	}
+	
+	public final void stop()
+	{
+		clock = null;
+		driver = null;
+		recording = false;
+	}
+	
+	/*
+	 * Keyframes
+	 */
+	public final long getKeyframeInterval()
+	{
+		return keyframeInterval;
+	}
+	
+	public final void setKeyframeInterval(long keyframeInterval)
+	{
+		// zero turns the keyframes off
+		this.keyframeInterval = keyframeInterval;
+	}
+	
+	public final int getKeyframes()
+	{
+		return keyframeCount;
+	}
+	
+	public final long getKeyframeTime(int keyframe)
+	{
+		return keyframeTimes[keyframe];
+	}
+	
+	public final int getKeyframeLength(int keyframe)
+	{
+		return keyframeLengths[keyframe];
+	}
+	
+	public final int findKeyframe(long time)
+	{
+		// last keyframe at or before the time
+		int low = 0;
+		int high = keyframeCount - 1;
+		
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			
+			if (keyframeTimes[middle] <= time)
+				low = middle + 1;
+			else
+				high = middle - 1;
+		}
+		
+		return high;
+	}
+	
+	public final boolean needsKeyframe(long time)
+	{
+		// reset is the first keyframe, the later ones go past the last one
+		long last = keyframeCount > 0 ? keyframeTimes[keyframeCount - 1] : 0;
+		
+		return keyframeInterval > 0 && time >= last + keyframeInterval;
+	}
+	
+	public final void addKeyframe(long time, byte[] state, int length)
+	{
+		if (compressor == null)
+			compressor = new Compressor();
+		
+		if (packed.length < Compressor.getMaxSize(length))
+			packed = new byte[Compressor.getMaxSize(length)];
+		
+		int packedLength = compressor.compress(state, 0, length, packed, 0);
+		byte[] keyframe = new byte[packedLength];
+		
+		System.arraycopy(packed, 0, keyframe, 0, packedLength);
+		
+		putKeyframe(time, length, keyframe);
+	}
+	
+	public final void loadKeyframe(int keyframe, byte[] state)
+	{
+		Compressor.decompress(keyframes[keyframe], 0, keyframes[keyframe].length, state, 0, keyframeLengths[keyframe]);
+	}
+	
+	private final void putKeyframe(long time, int length, byte[] keyframe)
+	{
+		if (keyframeCount == keyframeTimes.length) {
+			long[] newTimes = new long[keyframeCount * 2];
+			int[] newLengths = new int[keyframeCount * 2];
+			byte[][] newKeyframes = new byte[keyframeCount * 2][];
+			
+			System.arraycopy(keyframeTimes, 0, newTimes, 0, keyframeCount);
+			System.arraycopy(keyframeLengths, 0, newLengths, 0, keyframeCount);
+			System.arraycopy(keyframes, 0, newKeyframes, 0, keyframeCount);
+			
+			keyframeTimes = newTimes;
+			keyframeLengths = newLengths;
+			keyframes = newKeyframes;
+		}
+		
+		keyframeTimes[keyframeCount] = time;
+		keyframeLengths[keyframeCount] = length;
+		keyframes[keyframeCount] = keyframe;
+		keyframeCount++;
+	}
+	
+	/*
+	 * Joypad Driver (polled at fixed cycles, so a sampled input replays exactly)
+	 */
+	public final boolean isRaised()
+	{
+		long time = clock.getCycles();
+		
+		if (recording) {
+			driver.isRaised();
+			
+			return sample(time, (driver.getButtons() << 4) + (driver.getDirections() & 0x0F));
+		}
+		
+		int event = find(time);
+		
+		return event >= 0 && times[event] == time;
+	}
+	
+	public final int getButtons()
+	{
+		return (getInput(clock.getCycles()) >> 4) & 0x0F;
+	}
+	
+	public final int getDirections()
+	{
+		return getInput(clock.getCycles()) & 0x0F;
+	}
+	
+	private final boolean sample(long time, int input)
+	{
+		// a rewind or run-ahead rolls the time back, the events past it go
+		while (events > 0 && times[events - 1] >= time)
+			events--;
+		
+		while (keyframeCount > 0 && keyframeTimes[keyframeCount - 1] >= time)
+			keyframes[--keyframeCount] = null;
+		
+		if (input == getInput(time))
+			return false;
+		
+		add(time, input & 0xFF);
+		
+		return true;
+	}
+	
+	private final int getInput(long time)
+	{
+		int event = find(time);
+		
+		return event >= 0 ? inputs[event] : RELEASED;
+	}
+	
+	private final int find(long time)
+	{
+		// last event at or before the time
+		int low = 0;
+		int high = events - 1;
+		
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			
+			if (times[middle] <= time)
+				low = middle + 1;
+			else
+				high = middle - 1;
+		}
+		
+		return high;
+	}
+	
+	private final void add(long time, int input)
+	{
+		if (events == times.length) {
+			long[] newTimes = new long[events * 2];
+			int[] newInputs = new int[events * 2];
+			
+			System.arraycopy(times, 0, newTimes, 0, events);
+			System.arraycopy(inputs, 0, newInputs, 0, events);
+			
+			times = newTimes;
+			inputs = newInputs;
+		}
+		
+		times[events] = time;
+		inputs[events] = input;
+		events++;
+	}
+	
+	/*
+	 * Movie Files (the cycle deltas and inputs are stored as varints)
+	 */
+	public final void write(FileChannel channel)
+	{
+		Compressor compressor = new Compressor();
+		
+		int size = HEADER_SIZE + Compressor.getMaxSize(battery.length) + 11 * (events + 2) + 4 + 31 * keyframeCount;
+		
+		for (int keyframe = 0; keyframe < keyframeCount; keyframe++)
+			size += keyframes[keyframe].length;
+		
+		byte[] data = new byte[size];
+		
+		int packedLength = compressor.compress(battery, 0, battery.length, data, HEADER_SIZE);
+		
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putInt(cartridge);
+		buffer.putInt(clockBase);
+		buffer.putInt(battery.length);
+		buffer.putInt(packedLength);
+		buffer.putInt(events);
+		
+		int offset = HEADER_SIZE + packedLength;
+		long time = 0;
+		
+		for (int event = 0; event < events; event++) {
+			offset = putVarint(data, offset, times[event] - time);
+			data[offset++] = (byte) inputs[event];
+			
+			time = times[event];
+		}
+		
+		offset = putVarint(data, offset, Math.max(duration - time, 0));
+		
+		// the index comes first so that a reader can skip to any keyframe
+		offset = putVarint(data, offset, GameBoy.STATE_VERSION);
+		offset = putVarint(data, offset, keyframeCount);
+		
+		time = 0;
+		
+		for (int keyframe = 0; keyframe < keyframeCount; keyframe++) {
+			offset = putVarint(data, offset, keyframeTimes[keyframe] - time);
+			offset = putVarint(data, offset, keyframeLengths[keyframe]);
+			offset = putVarint(data, offset, keyframes[keyframe].length);
+			
+			time = keyframeTimes[keyframe];
+		}
+		
+		for (int keyframe = 0; keyframe < keyframeCount; keyframe++) {
+			System.arraycopy(keyframes[keyframe], 0, data, offset, keyframes[keyframe].length);
+			offset += keyframes[keyframe].length;
+		}
+		
+		buffer.clear();
+		buffer.limit(offset);
+		
+		try {
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			
+			channel.truncate(channel.position());
+		}
+		catch (IOException exception) {
+			throw new RuntimeException("Could not write movie");
+		}
+	}
+	
+	public final void read(FileChannel channel)
+	{
+		ByteBuffer buffer;
+		
+		try {
+			long size = channel.size() - channel.position();
+			
+			if (size < HEADER_SIZE || size > Integer.MAX_VALUE)
+				throw new RuntimeException("Movie is corrupted");
+			
+			buffer = ByteBuffer.allocate((int) size);
+			
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0)
+					throw new RuntimeException("Movie is truncated");
+			}
+		}
+		catch (IOException exception) {
+			throw new RuntimeException("Could not read movie");
+		}
+		
+		byte[] data = buffer.array();
+		
+		buffer.flip();
+		
+		if (buffer.getInt() != MAGIC)
+			throw new RuntimeException("Not a movie");
+		
+		int version = buffer.getInt();
+		
+		if (version > VERSION)
+			throw new RuntimeException("Unsupported movie version");
+		
+		int cartridge = buffer.getInt();
+		int clockBase = buffer.getInt();
+		int batteryLength = buffer.getInt();
+		int packedLength = buffer.getInt();
+		int count = buffer.getInt();
+		
+		if (batteryLength < 0 || packedLength < 0 || packedLength > data.length - HEADER_SIZE || count < 0)
+			throw new RuntimeException("Movie is corrupted");
+		
+		byte[] battery = new byte[batteryLength];
+		
+		Compressor.decompress(data, HEADER_SIZE, packedLength, battery, 0, batteryLength);
+		
+		stop();
+		
+		this.cartridge = cartridge;
+		this.clockBase = clockBase;
+		this.battery = battery;
+		
+		events = 0;
+		
+		buffer.position(HEADER_SIZE + packedLength);
+		
+		long time = 0;
+		
+		for (int event = 0; event < count; event++) {
+			time += getVarint(buffer);
+			
+			if (!buffer.hasRemaining())
+				throw new RuntimeException("Movie is truncated");
+			
+			add(time, buffer.get() & 0xFF);
+		}
+		
+		duration = time + getVarint(buffer);
+		
+		keyframeCount = 0;
+		
+		if (version >= 2)
+			readKeyframes(buffer);
+	}
+	
+	private final void readKeyframes(ByteBuffer buffer)
+	{
+		long stateVersion = getVarint(buffer);
+		long count = getVarint(buffer);
+		
+		if (count > buffer.remaining())
+			throw new RuntimeException("Movie is corrupted");
+		
+		long[] times = new long[(int) count];
+		int[] lengths = new int[(int) count];
+		int[] packedLengths = new int[(int) count];
+		long time = 0;
+		
+		for (int keyframe = 0; keyframe < count; keyframe++) {
+			time += getVarint(buffer);
+			
+			times[keyframe] = time;
+			lengths[keyframe] = (int) getVarint(buffer);
+			packedLengths[keyframe] = (int) getVarint(buffer);
+		}
+		
+		// keyframes from another save state layout are dropped, they only speed up seeking
+		if (stateVersion != GameBoy.STATE_VERSION)
+			return;
+		
+		for (int keyframe = 0; keyframe < count; keyframe++) {
+			if (lengths[keyframe] < 0 || packedLengths[keyframe] < 0 || packedLengths[keyframe] > buffer.remaining())
+				throw new RuntimeException("Movie is truncated");
+			
+			byte[] data = new byte[packedLengths[keyframe]];
+			
+			buffer.get(data);
+			
+			putKeyframe(times[keyframe], lengths[keyframe], data);
+		}
+	}
+	
+	private static final long getVarint(ByteBuffer buffer)
+	{
+		long value = 0;
+		
+		for (int shift = 0; shift < 64; shift += 7) {
+			if (!buffer.hasRemaining())
+				throw new RuntimeException("Movie is truncated");
+			
+			int data = buffer.get();
+			
+			value |= (long) (data & 0x7F) << shift;
+			
+			if (data >= 0)
+				return value;
+		}
+		
+		throw new RuntimeException("Movie is corrupted");
+	}
+	
+	private static final int putVarint(byte[] data, int offset, long value)
+	{
+		while ((value & ~0x7FL) != 0) {
+			data[offset++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		
+		data[offset++] = (byte) value;
+		
+		return offset;
+	}
+}
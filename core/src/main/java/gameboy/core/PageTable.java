@@ -0,0 +1,176 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Memory Page Table
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+import gameboy.core.cartridge.BankMapper;
+
+public final class PageTable implements BankMapper {
+	/*
+	 * Page Size (256 bytes)
+	 */
+	public static final int PAGE_SIZE = 0x100;
+	
+	/*
+	 * Page Count (64KB address space)
+	 */
+	public static final int PAGES = 0x100;
+	
+	/*
+	 * Read and Write Pages (null pages go through the I/O handlers)
+	 */
+	private byte[][] readPages = new byte[PAGES][];
+	private byte[][] writePages = new byte[PAGES][];
+
+	/*
+	 * Page Offsets (index = offset + address)
+	 */
+	private int[] readOffsets = new int[PAGES];
+	private int[] writeOffsets = new int[PAGES];
+	
+	/*
+	 * Watched Pages (writes go through the I/O handlers until unwatched)
+	 */
+	private boolean[] watched = new boolean[PAGES];
+	private byte[][] watchedPages = new byte[PAGES][];
+	
+	/*
+	 * Mapping Version (bumped whenever a page changes)
+	 */
+	private int version;
+	
+	public PageTable()
+	{
+		reset();
+	}
+	
+	public final byte[][] getReadPages()
+	{
+		return readPages;
+	}
+	
+	public final byte[][] getWritePages()
+	{
+		return writePages;
+	}
+	
+	public final int[] getReadOffsets()
+	{
+		return readOffsets;
+	}
+	
+	public final int[] getWriteOffsets()
+	{
+		return writeOffsets;
+	}
+	
+	public final int getVersion()
+	{
+		return version;
+	}
+	
+	public final boolean isWatched(int page)
+	{
+		return watched[page];
+	}
+	
+	public final void reset()
+	{
+		unmap(0x0000, 0x10000);
+	}
+	
+	public final void map(int address, int size, byte[] memory, int offset, boolean writable)
+	{
+		for (int page = address >> 8; page < (address + size) >> 8; page++) {
+			readPages[page] = memory;
+			readOffsets[page] = offset - address;
+			
+			if (writable) {
+				writePages[page] = memory;
+				writeOffsets[page] = offset - address;
+			}
+			else {
+				writePages[page] = null;
+				writeOffsets[page] = 0;
+			}
+			
+			watched[page] = false;
+			watchedPages[page] = null;
+		}
+		
+		version++;
+	}
+	
+	public final void unmap(int address, int size)
+	{
+		for (int page = address >> 8; page < (address + size) >> 8; page++) {
+			readPages[page] = null;
+			readOffsets[page] = 0;
+			
+			writePages[page] = null;
+			writeOffsets[page] = 0;
+			
+			watched[page] = false;
+			watchedPages[page] = null;
+		}
+		
+		version++;
+	}
+	
+	public final void watch(int page)
+	{
+		if (!watched[page]) {
+			watched[page] = true;
+			watchedPages[page] = writePages[page];
+			writePages[page] = null;
+			
+			version++;
+		}
+	}
+	
+	public final void unwatch(int page)
+	{
+		if (watched[page]) {
+			watched[page] = false;
+			writePages[page] = watchedPages[page];
+			watchedPages[page] = null;
+			
+			version++;
+		}
+	}
+	
+	public final void mapROM(byte[] rom, int offset)
+	{
+		// 4000-7FFF Switchable ROM Bank
+		map(0x4000, 0x4000, rom, offset, false);
+	}
+	
+	public final void mapRAM(byte[] ram, int offset)
+	{
+		// A000-BFFF External RAM Bank
+		map(0xA000, 0x2000, ram, offset, true);
+	}
+	
+	public final void unmapRAM()
+	{
+		unmap(0xA000, 0x2000);
+	}
+}
@@ -23,27 +23,34 @@ package gameboy.core;
 
 public class RAM {
 	/*
-	 * Work RAM
+	 * State Arena (work RAM and high RAM)
 	 */
-	private byte[] wram = new byte[8192];
+	private byte[] arena;
 	
-	/*
-	 * High RAM
-	 */
-	private byte[] hram = new byte[128];
-	
-	public RAM()
+	public RAM(byte[] arena)
 	{
+		this.arena = arena;
+		
 		reset();
 	}
 	
+	public RAM(RAM ram)
+	{
+		arena = ram.arena;
+	}
+	
+	public final void setArena(byte[] arena)
+	{
+		this.arena = arena;
+	}
+	
 	public final void reset()
 	{
-		for (int index = 0; index < wram.length; index++)
-			wram[index] = (byte) 0x00;
+		for (int index = 0; index < Arena.WRAM_SIZE; index++)
+			arena[Arena.WRAM + index] = (byte) 0x00;
 		
-		for (int index = 0; index < hram.length; index++)
-			hram[index] = (byte) 0x00;
+		for (int index = 0; index < Arena.HRAM_SIZE; index++)
+			arena[Arena.HRAM + index] = (byte) 0x00;
 	}
 	
 	public final void write(int address, int data)
@@ -51,11 +58,11 @@ public class RAM {
 		if (address >= 0xC000 && address <= 0xFDFF) {
 			// C000-DFFF Work RAM (8KB)
 			// E000-FDFF Echo RAM
-			wram[address & 0x1FFF] = (byte) data;
+			arena[Arena.WRAM + (address & 0x1FFF)] = (byte) data;
 		}
 		else if (address >= 0xFF80 && address <= 0xFFFE) {
 			// FF80-FFFE High RAM
-			hram[address & 0x7F] = (byte) data;
+			arena[Arena.HRAM + (address & 0x7F)] = (byte) data;
 		}
 	}
 
@@ -64,11 +71,11 @@ public class RAM {
 		if (address >= 0xC000 && address <= 0xFDFF) {
 			// C000-DFFF Work RAM
 			// E000-FDFF Echo RAM
-			return wram[address & 0x1FFF] & 0xFF;
+			return arena[Arena.WRAM + (address & 0x1FFF)] & 0xFF;
 		}
 		else if (address >= 0xFF80 && address <= 0xFFFE) {
 			// FF80-FFFE High RAM
-			return hram[address & 0x7F] & 0xFF;
+			return arena[Arena.HRAM + (address & 0x7F)] & 0xFF;
 		}		
 		return 0xFF;
 	}
@@ -0,0 +1,523 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * JVM Bytecode Recompiler
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+
+final class Recompiler extends ClassLoader {
+	/*
+	 * Class Names
+	 */
+	private static final String PACKAGE = "gameboy/core/recompiled/Block";
+	private static final String COMPILED_BLOCK = "gameboy/core/CompiledBlock";
+	private static final String CPU_CLASS = "gameboy/core/CPU";
+	private static final String PAGE_TABLE = "gameboy/core/PageTable";
+	
+	/*
+	 * Method Descriptors
+	 */
+	private static final String EXECUTE = "(Lgameboy/core/CPU;Lgameboy/core/Memory;Lgameboy/core/PageTable;)V";
+	private static final String CPU_INT = "(Lgameboy/core/CPU;I)V";
+	private static final String CPU_INT_INT = "(Lgameboy/core/CPU;II)V";
+	private static final String CPU_MEMORY = "(Lgameboy/core/CPU;Lgameboy/core/Memory;)V";
+	private static final String CPU_MEMORY_INT = "(Lgameboy/core/CPU;Lgameboy/core/Memory;I)V";
+	private static final String CPU_MEMORY_INT_INT = "(Lgameboy/core/CPU;Lgameboy/core/Memory;II)V";
+	
+	/*
+	 * Local Variables of execute()
+	 */
+	private static final int CPU_LOCAL = 1;
+	private static final int MEMORY_LOCAL = 2;
+	private static final int PAGE_TABLE_LOCAL = 3;
+	private static final int VERSION_LOCAL = 4;
+	
+	/*
+	 * Generated Classes (one per distinct block and never unloaded, so RAM code
+	 * recompiled after every flush reuses its class and the count is capped)
+	 */
+	private static final int MAX_CLASSES = 4096;
+	
+	private int count;
+	private HashMap<String, CompiledBlock> classes = new HashMap<String, CompiledBlock>();
+	
+	/*
+	 * Cleared when the runtime cannot load class files (Dalvik and ART)
+	 */
+	private boolean enabled = true;
+	
+	Recompiler()
+	{
+		super(Recompiler.class.getClassLoader());
+	}
+	
+	final CompiledBlock compile(CodeBlock block)
+	{
+		if (!enabled)
+			return null;
+		
+		// compile the longest supported prefix
+		int length = 0;
+		
+		while (length < block.code.length && isSupported(block.code[length]))
+			length++;
+		
+		if (length == 0)
+			return null;
+		
+		// the generated code only depends on the address and the operations
+		String key = getKey(block, length);
+		CompiledBlock compiled = classes.get(key);
+		
+		if (compiled != null || count == MAX_CLASSES)
+			return compiled;
+		
+		String name = PACKAGE + count++;
+		byte[] bytes = generate(name, block, length);
+		
+		try {
+			Class<?> type = defineClass(name.replace('/', '.'), bytes, 0, bytes.length);
+			
+			compiled = (CompiledBlock) type.getDeclaredConstructor().newInstance();
+		}
+		catch (UnsupportedOperationException exception) {
+			enabled = false;
+			return null;
+		}
+		catch (NoSuchMethodException exception) {
+			throw new RuntimeException(exception);
+		}
+		catch (InvocationTargetException exception) {
+			throw new RuntimeException(exception);
+		}
+		catch (InstantiationException exception) {
+			throw new RuntimeException(exception);
+		}
+		catch (IllegalAccessException exception) {
+			throw new RuntimeException(exception);
+		}
+		
+		classes.put(key, compiled);
+		
+		return compiled;
+	}
+	
+	private static final String getKey(CodeBlock block, int length)
+	{
+		StringBuilder key = new StringBuilder();
+		
+		key.append(block.address).append(length == block.code.length ? ':' : '+');
+		
+		for (int index = 0; index < length; index++)
+			key.append(block.code[index]).append(',').append(block.next[index]).append(' ');
+		
+		return key.toString();
+	}
+	
+	private final byte[] generate(String name, CodeBlock block, int length)
+	{
+		ClassBuilder builder = new ClassBuilder(name, COMPILED_BLOCK);
+		
+		builder.beginMethod("<init>", "()V");
+		builder.emitLocal(ClassBuilder.ALOAD, 0);
+		builder.emitInvoke(ClassBuilder.INVOKESPECIAL, COMPILED_BLOCK, "<init>", "()V");
+		builder.emit(ClassBuilder.RETURN);
+		builder.endMethod(1, 1);
+		
+		builder.beginMethod("execute", EXECUTE);
+		
+		// version = pageTable.getVersion()
+		builder.emitLocal(ClassBuilder.ALOAD, PAGE_TABLE_LOCAL);
+		builder.emitInvoke(ClassBuilder.INVOKEVIRTUAL, PAGE_TABLE, "getVersion", "()I");
+		builder.emitLocal(ClassBuilder.ISTORE, VERSION_LOCAL);
+		
+		int top = builder.position();
+		
+		for (int index = 0; index < length; index++) {
+			int operation = block.code[index];
+			int next = block.next[index];
+			
+			// cpu.setPC(next)
+			builder.emitLocal(ClassBuilder.ALOAD, CPU_LOCAL);
+			builder.emitInt(next);
+			builder.emitInvoke(ClassBuilder.INVOKEVIRTUAL, CPU_CLASS, "setPC", "(I)V");
+			
+			emitOperation(builder, operation);
+			
+			if (index == length - 1) {
+				// blocks that branch back to their start loop in place
+				if (isBranch(operation) && length == block.code.length) {
+					builder.emitLocal(ClassBuilder.ALOAD, CPU_LOCAL);
+					builder.emitInvoke(ClassBuilder.INVOKEVIRTUAL, CPU_CLASS, "getPC", "()I");
+					builder.emitInt(block.address);
+					builder.emitReturnUnless(ClassBuilder.IF_ICMPEQ);
+					
+					builder.emitLocal(ClassBuilder.ALOAD, CPU_LOCAL);
+					builder.emitInvoke(ClassBuilder.INVOKEVIRTUAL, CPU_CLASS, "getCycles", "()I");
+					builder.emitReturnUnless(ClassBuilder.IFGT);
+					
+					builder.emitBranch(ClassBuilder.GOTO, top);
+				}
+				break;
+			}
+			
+			if (isWrite(operation)) {
+				// leave if the write raised an interrupt
+				builder.emitLocal(ClassBuilder.ALOAD, CPU_LOCAL);
+				builder.emitInvoke(ClassBuilder.INVOKEVIRTUAL, CPU_CLASS, "getPC", "()I");
+				builder.emitInt(next);
+				builder.emitReturnUnless(ClassBuilder.IF_ICMPEQ);
+				
+				// leave if the write switched banks or hit cached code
+				builder.emitLocal(ClassBuilder.ALOAD, PAGE_TABLE_LOCAL);
+				builder.emitInvoke(ClassBuilder.INVOKEVIRTUAL, PAGE_TABLE, "getVersion", "()I");
+				builder.emitLocal(ClassBuilder.ILOAD, VERSION_LOCAL);
+				builder.emitReturnUnless(ClassBuilder.IF_ICMPEQ);
+			}
+			
+			// leave when the time slice is over
+			builder.emitLocal(ClassBuilder.ALOAD, CPU_LOCAL);
+			builder.emitInvoke(ClassBuilder.INVOKEVIRTUAL, CPU_CLASS, "getCycles", "()I");
+			builder.emitReturnUnless(ClassBuilder.IFGT);
+		}
+		
+		builder.emit(ClassBuilder.RETURN);
+		builder.endMethod(4, 5);
+		
+		return builder.toByteArray();
+	}
+	
+	/*
+	 * Operations without templates are left to the interpreter
+	 */
+	private static final boolean isSupported(int operation)
+	{
+		if ((operation & 0x300) != BlockCache.PLAIN && (operation & 0x300) != BlockCache.IMMEDIATE)
+			return true;
+		
+		switch (operation & 0xFF) {
+		// LD (nnnn),SP / STOP / HALT / RETI / ADD SP,nn / LD HL,SP+nn / DI / EI
+		case 0x08:
+		case 0x10:
+		case 0x76:
+		case 0xD9:
+		case 0xE8:
+		case 0xF8:
+		case 0xF3:
+		case 0xFB:
+			return false;
+		}
+		
+		return true;
+	}
+	
+	private static final boolean isBranch(int operation)
+	{
+		if ((operation & 0x300) == BlockCache.PREFIX_CB)
+			return false;
+		
+		switch (operation & 0xFF) {
+		// JR / JR cc / JP / JP cc
+		case 0x18:
+		case 0x20:
+		case 0x28:
+		case 0x30:
+		case 0x38:
+		case 0xC2:
+		case 0xC3:
+		case 0xCA:
+		case 0xD2:
+		case 0xDA:
+			return true;
+		}
+		
+		return false;
+	}
+	
+	private static final boolean isWrite(int operation)
+	{
+		int opcode = operation & 0xFF;
+		
+		if ((operation & 0x300) == BlockCache.PREFIX_CB)
+			return (opcode & 0x07) == CompiledBlock.HL_INDIRECT && (opcode & 0xC0) != 0x40;
+		
+		if (opcode >= 0x40 && opcode <= 0x7F)
+			return (opcode & 0xF8) == 0x70;
+		
+		switch (opcode) {
+		case 0x02:
+		case 0x12:
+		case 0x22:
+		case 0x32:
+		case 0x34:
+		case 0x35:
+		case 0x36:
+		case 0xC5:
+		case 0xD5:
+		case 0xE5:
+		case 0xF5:
+		case 0xE0:
+		case 0xE2:
+		case 0xEA:
+			return true;
+		}
+		
+		return false;
+	}
+	
+	private final void emitOperation(ClassBuilder builder, int operation)
+	{
+		int opcode = operation & 0xFF;
+		int operand = operation >>> 16;
+		
+		if ((operation & 0x300) == BlockCache.PREFIX_CB) {
+			if (opcode <= 0x3F)
+				emitTemplate(builder, "rotate", opcode >> 3, opcode & 0x07);
+			else if (opcode <= 0x7F)
+				emitTemplate(builder, "testBit", (opcode >> 3) & 0x07, opcode & 0x07);
+			else if (opcode <= 0xBF)
+				emitTemplate(builder, "resetBit", (opcode >> 3) & 0x07, opcode & 0x07);
+			else
+				emitTemplate(builder, "setBit", (opcode >> 3) & 0x07, opcode & 0x07);
+			return;
+		}
+		
+		if (opcode >= 0x40 && opcode <= 0x7F) {
+			emitTemplate(builder, "load", (opcode >> 3) & 0x07, opcode & 0x07);
+			return;
+		}
+		
+		if (opcode >= 0x80 && opcode <= 0xBF) {
+			emitTemplate(builder, "arithmetic", (opcode >> 3) & 0x07, opcode & 0x07);
+			return;
+		}
+		
+		int r = (opcode >> 3) & 0x07;
+		int rr = (opcode >> 4) & 0x03;
+		int cc = (opcode >> 3) & 0x03;
+		
+		switch (opcode & 0xC7) {
+		case 0x04:
+			emitTemplate(builder, "increment", r);
+			return;
+		case 0x05:
+			emitTemplate(builder, "decrement", r);
+			return;
+		case 0x06:
+			emitTemplate(builder, "loadImmediate", r, operand);
+			return;
+		case 0xC6:
+			emitCpuTemplate(builder, "arithmeticImmediate", r, operand);
+			return;
+		case 0xC7:
+			emitTemplate(builder, "restart", opcode & 0x38);
+			return;
+		}
+		
+		switch (opcode) {
+		case 0x00:
+		case 0x07:
+		case 0x0F:
+		case 0x17:
+		case 0x1F:
+		case 0x27:
+		case 0x2F:
+		case 0x37:
+		case 0x3F:
+			emitCpuTemplate(builder, "accumulator", opcode);
+			break;
+			
+		case 0x01:
+		case 0x11:
+		case 0x21:
+		case 0x31:
+			emitCpuTemplate(builder, "loadPair", rr, operand);
+			break;
+			
+		case 0x02:
+		case 0x12:
+		case 0x22:
+		case 0x32:
+			emitTemplate(builder, "storeIndirect", rr);
+			break;
+			
+		case 0x0A:
+		case 0x1A:
+		case 0x2A:
+		case 0x3A:
+			emitTemplate(builder, "loadIndirect", rr);
+			break;
+			
+		case 0x03:
+		case 0x13:
+		case 0x23:
+		case 0x33:
+			emitCpuTemplate(builder, "incrementPair", rr);
+			break;
+			
+		case 0x0B:
+		case 0x1B:
+		case 0x2B:
+		case 0x3B:
+			emitCpuTemplate(builder, "decrementPair", rr);
+			break;
+			
+		case 0x09:
+		case 0x19:
+		case 0x29:
+		case 0x39:
+			emitCpuTemplate(builder, "addPair", rr);
+			break;
+			
+		case 0x18:
+			emitCpuTemplate(builder, "jumpRelative", CompiledBlock.CC_ALWAYS, operand);
+			break;
+		case 0x20:
+		case 0x28:
+		case 0x30:
+		case 0x38:
+			emitCpuTemplate(builder, "jumpRelative", cc, operand);
+			break;
+			
+		case 0xC3:
+			emitCpuTemplate(builder, "jump", CompiledBlock.CC_ALWAYS, operand);
+			break;
+		case 0xC2:
+		case 0xCA:
+		case 0xD2:
+		case 0xDA:
+			emitCpuTemplate(builder, "jump", cc, operand);
+			break;
+			
+		case 0xCD:
+			emitTemplate(builder, "call", CompiledBlock.CC_ALWAYS, operand);
+			break;
+		case 0xC4:
+		case 0xCC:
+		case 0xD4:
+		case 0xDC:
+			emitTemplate(builder, "call", cc, operand);
+			break;
+			
+		case 0xC9:
+			emitTemplate(builder, "ret", CompiledBlock.CC_ALWAYS);
+			break;
+		case 0xC0:
+		case 0xC8:
+		case 0xD0:
+		case 0xD8:
+			emitTemplate(builder, "ret", cc);
+			break;
+			
+		case 0xC1:
+		case 0xD1:
+		case 0xE1:
+		case 0xF1:
+			emitTemplate(builder, "popPair", rr);
+			break;
+			
+		case 0xC5:
+		case 0xD5:
+		case 0xE5:
+		case 0xF5:
+			emitTemplate(builder, "pushPair", rr);
+			break;
+			
+		case 0xE0:
+			emitTemplate(builder, "storeHigh", operand);
+			break;
+		case 0xF0:
+			emitTemplate(builder, "loadHigh", operand);
+			break;
+		case 0xE2:
+			emitTemplate(builder, "storeHighC");
+			break;
+		case 0xF2:
+			emitTemplate(builder, "loadHighC");
+			break;
+		case 0xEA:
+			emitTemplate(builder, "storeAbsolute", operand);
+			break;
+		case 0xFA:
+			emitTemplate(builder, "loadAbsolute", operand);
+			break;
+			
+		case 0xE9:
+			emitCpuTemplate(builder, "jumpHL");
+			break;
+		case 0xF9:
+			emitCpuTemplate(builder, "loadSP");
+			break;
+			
+		default:
+			throw new RuntimeException("Invalid operation");
+		}
+	}
+	
+	/*
+	 * Template Calls (with or without the memory argument)
+	 */
+	private final void emitCpuTemplate(ClassBuilder builder, String template)
+	{
+		builder.emitLocal(ClassBuilder.ALOAD, CPU_LOCAL);
+		builder.emitInvoke(ClassBuilder.INVOKESTATIC, COMPILED_BLOCK, template, "(Lgameboy/core/CPU;)V");
+	}
+	
+	private final void emitCpuTemplate(ClassBuilder builder, String template, int first)
+	{
+		builder.emitLocal(ClassBuilder.ALOAD, CPU_LOCAL);
+		builder.emitInt(first);
+		builder.emitInvoke(ClassBuilder.INVOKESTATIC, COMPILED_BLOCK, template, CPU_INT);
+	}
+	
+	private final void emitCpuTemplate(ClassBuilder builder, String template, int first, int second)
+	{
+		builder.emitLocal(ClassBuilder.ALOAD, CPU_LOCAL);
+		builder.emitInt(first);
+		builder.emitInt(second);
+		builder.emitInvoke(ClassBuilder.INVOKESTATIC, COMPILED_BLOCK, template, CPU_INT_INT);
+	}
+	
+	private final void emitTemplate(ClassBuilder builder, String template)
+	{
+		builder.emitLocal(ClassBuilder.ALOAD, CPU_LOCAL);
+		builder.emitLocal(ClassBuilder.ALOAD, MEMORY_LOCAL);
+		builder.emitInvoke(ClassBuilder.INVOKESTATIC, COMPILED_BLOCK, template, CPU_MEMORY);
+	}
+	
+	private final void emitTemplate(ClassBuilder builder, String template, int first)
+	{
+		builder.emitLocal(ClassBuilder.ALOAD, CPU_LOCAL);
+		builder.emitLocal(ClassBuilder.ALOAD, MEMORY_LOCAL);
+		builder.emitInt(first);
+		builder.emitInvoke(ClassBuilder.INVOKESTATIC, COMPILED_BLOCK, template, CPU_MEMORY_INT);
+	}
+	
+	private final void emitTemplate(ClassBuilder builder, String template, int first, int second)
+	{
+		builder.emitLocal(ClassBuilder.ALOAD, CPU_LOCAL);
+		builder.emitLocal(ClassBuilder.ALOAD, MEMORY_LOCAL);
+		builder.emitInt(first);
+		builder.emitInt(second);
+		builder.emitInvoke(ClassBuilder.INVOKESTATIC, COMPILED_BLOCK, template, CPU_MEMORY_INT_INT);
+	}
+}
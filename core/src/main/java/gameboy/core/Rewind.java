@@ -0,0 +1,315 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Rewind Buffer
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+import java.nio.ByteBuffer;
+
+public final class Rewind {
+	/*
+	 * Record Overhead (payload length stored before and after each record)
+	 */
+	private static final int RECORD_OVERHEAD = 8;
+	
+	/*
+	 * Delta Ring (oldest record at the tail, newest record just before the head)
+	 */
+	private byte[] ring;
+	private int head;
+	private int tail;
+	private int used;
+	private int records;
+	
+	/*
+	 * Latest Snapshot, Capture Buffer and Encoded Delta
+	 */
+	private byte[] current = new byte[0];
+	private byte[] scratch = new byte[0];
+	private byte[] encoded = new byte[0];
+	private ByteBuffer currentBuffer;
+	private ByteBuffer scratchBuffer;
+	
+	/*
+	 * Snapshot State (captured = latest snapshot is valid, restored = machine sits on it)
+	 */
+	private boolean captured;
+	private boolean restored;
+	
+	public Rewind(int budget)
+	{
+		if (budget <= RECORD_OVERHEAD)
+			throw new RuntimeException("Rewind budget is too small");
+		
+		ring = new byte[budget];
+		
+		reset();
+	}
+	
+	public final int getBudget()
+	{
+		return ring.length;
+	}
+	
+	public final int getSnapshots()
+	{
+		return captured ? records + 1 : 0;
+	}
+	
+	public final void reset()
+	{
+		head = tail = used = records = 0;
+		
+		captured = false;
+		restored = false;
+	}
+	
+	public final void advance()
+	{
+		restored = false;
+	}
+	
+	public final void capture(GameBoy gameboy)
+	{
+		int size = gameboy.getStateSize();
+		
+		if (current.length != size) {
+			// the state size only changes with the cartridge
+			current = new byte[size];
+			scratch = new byte[size];
+			encoded = new byte[2 * size + 16];
+			currentBuffer = ByteBuffer.wrap(current);
+			scratchBuffer = ByteBuffer.wrap(scratch);
+			
+			reset();
+		}
+		
+		scratchBuffer.clear();
+		gameboy.saveState(scratchBuffer);
+		
+		// the ring keeps how to step back from each snapshot to the one before
+		if (captured)
+			store(encode(size));
+		
+		byte[] snapshot = current;
+		current = scratch;
+		scratch = snapshot;
+		
+		ByteBuffer buffer = currentBuffer;
+		currentBuffer = scratchBuffer;
+		scratchBuffer = buffer;
+		
+		captured = true;
+		restored = false;
+	}
+	
+	public final boolean restore(GameBoy gameboy)
+	{
+		if (!captured)
+			return false;
+		
+		// the first step returns to the latest snapshot, later steps go further back
+		if (restored && records > 0)
+			decode(remove());
+		
+		currentBuffer.clear();
+		gameboy.loadState(currentBuffer);
+		
+		restored = true;
+		
+		return true;
+	}
+	
+	/*
+	 * Delta Encoding (XOR against the previous snapshot, run-length coded)
+	 */
+	private final int encode(int size)
+	{
+		int length = 0;
+		int position = 0;
+		
+		while (position < size) {
+			int start = position;
+			
+			while (position < size && scratch[position] == current[position])
+				position++;
+			
+			length = putCount(length, position - start);
+			
+			start = position;
+			
+			// short unchanged gaps are cheaper as literals than as new runs
+			while (position < size && (scratch[position] != current[position] || isGap(position, size)))
+				position++;
+			
+			length = putCount(length, position - start);
+			
+			for (int index = start; index < position; index++)
+				encoded[length++] = (byte) (scratch[index] ^ current[index]);
+		}
+		
+		return length;
+	}
+	
+	private final boolean isGap(int position, int size)
+	{
+		for (int index = position + 1; index < position + 4 && index < size; index++) {
+			if (scratch[index] != current[index])
+				return true;
+		}
+		
+		return false;
+	}
+	
+	private final void decode(int length)
+	{
+		int position = 0;
+		int index = 0;
+		
+		while (index < length) {
+			int skip = 0;
+			int shift = 0;
+			int data;
+			
+			do {
+				data = encoded[index++];
+				skip |= (data & 0x7F) << shift;
+				shift += 7;
+			} while ((data & 0x80) != 0);
+			
+			int count = 0;
+			shift = 0;
+			
+			do {
+				data = encoded[index++];
+				count |= (data & 0x7F) << shift;
+				shift += 7;
+			} while ((data & 0x80) != 0);
+			
+			position += skip;
+			
+			while (count-- > 0)
+				current[position++] ^= encoded[index++];
+		}
+	}
+	
+	private final int putCount(int length, int count)
+	{
+		while (count >= 0x80) {
+			encoded[length++] = (byte) (count | 0x80);
+			count >>>= 7;
+		}
+		
+		encoded[length++] = (byte) count;
+		
+		return length;
+	}
+	
+	/*
+	 * Ring Management
+	 */
+	private final void store(int length)
+	{
+		int size = length + RECORD_OVERHEAD;
+		
+		if (size > ring.length) {
+			// older snapshots cannot be reached without this delta
+			head = tail = used = records = 0;
+			return;
+		}
+		
+		while (used + size > ring.length)
+			evict();
+		
+		writeInt(head, length);
+		write(head + 4, length);
+		writeInt(head + 4 + length, length);
+		
+		head = wrap(head + size);
+		used += size;
+		records++;
+	}
+	
+	private final int remove()
+	{
+		int length = readInt(head - 4);
+		
+		head = wrap(head - length - RECORD_OVERHEAD);
+		read(head + 4, length);
+		
+		used -= length + RECORD_OVERHEAD;
+		records--;
+		
+		return length;
+	}
+	
+	private final void evict()
+	{
+		int length = readInt(tail);
+		
+		tail = wrap(tail + length + RECORD_OVERHEAD);
+		
+		used -= length + RECORD_OVERHEAD;
+		records--;
+	}
+	
+	private final int wrap(int position)
+	{
+		position %= ring.length;
+		
+		return position < 0 ? position + ring.length : position;
+	}
+	
+	private final void write(int position, int length)
+	{
+		position = wrap(position);
+		
+		int first = Math.min(length, ring.length - position);
+		
+		System.arraycopy(encoded, 0, ring, position, first);
+		System.arraycopy(encoded, first, ring, 0, length - first);
+	}
+	
+	private final void read(int position, int length)
+	{
+		position = wrap(position);
+		
+		int first = Math.min(length, ring.length - position);
+		
+		System.arraycopy(ring, position, encoded, 0, first);
+		System.arraycopy(ring, 0, encoded, first, length - first);
+	}
+	
+	private final void writeInt(int position, int data)
+	{
+		for (int index = 0; index < 4; index++)
+			ring[wrap(position + index)] = (byte) (data >> (index << 3));
+	}
+	
+	private final int readInt(int position)
+	{
+		int data = 0;
+		
+		for (int index = 0; index < 4; index++)
+			data |= (ring[wrap(position + index)] & 0xFF) << (index << 3);
+		
+		return data;
+	}
+}
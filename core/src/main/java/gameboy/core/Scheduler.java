@@ -0,0 +1,191 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Event Scheduler
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+import java.nio.ByteBuffer;
+
+public final class Scheduler {
+	/*
+	 * Devices
+	 */
+	public static final int SERIAL = 0;
+	public static final int TIMER = 1;
+	public static final int VIDEO = 2;
+	public static final int SOUND = 3;
+	public static final int JOYPAD = 4;
+	
+	public static final int DEVICES = 5;
+	
+	/*
+	 * Event time of idle devices
+	 */
+	public static final long NEVER = Long.MAX_VALUE;
+	
+	/*
+	 * Global Time (cycles since reset)
+	 */
+	private long time;
+	
+	/*
+	 * Event Queue (min-heap of devices ordered by event time, then by device so
+	 * that the order of ties does not depend on the shape of the heap)
+	 */
+	private long[] events = new long[DEVICES];
+	private int[] heap = new int[DEVICES];
+	private int[] positions = new int[DEVICES];
+	
+	public Scheduler()
+	{
+		reset();
+	}
+	
+	public final void reset()
+	{
+		time = 0;
+		
+		for (int device = 0; device < DEVICES; device++) {
+			events[device] = NEVER;
+			heap[device] = device;
+			positions[device] = device;
+		}
+	}
+	
+	/*
+	 * Save State (the heap is kept as is, a load does not rebuild it)
+	 */
+	public final int getStateSize()
+	{
+		return 8 + DEVICES * (8 + 1);
+	}
+	
+	public final void saveState(ByteBuffer buffer)
+	{
+		buffer.putLong(time);
+		
+		for (int device = 0; device < DEVICES; device++)
+			buffer.putLong(events[device]);
+		
+		for (int position = 0; position < DEVICES; position++)
+			buffer.put((byte) heap[position]);
+	}
+	
+	public final void loadState(ByteBuffer buffer)
+	{
+		time = buffer.getLong();
+		
+		for (int device = 0; device < DEVICES; device++)
+			events[device] = buffer.getLong();
+		
+		for (int position = 0; position < DEVICES; position++) {
+			heap[position] = buffer.get();
+			positions[heap[position]] = position;
+		}
+	}
+	
+	public final long getTime()
+	{
+		return time;
+	}
+	
+	public final void setTime(long time)
+	{
+		this.time = time;
+	}
+	
+	public final int getNextDevice()
+	{
+		return heap[0];
+	}
+	
+	public final long getNextEvent()
+	{
+		return events[heap[0]];
+	}
+	
+	public final long getEvent(int device)
+	{
+		return events[device];
+	}
+	
+	public final void schedule(int device, long event)
+	{
+		long previous = events[device];
+		
+		events[device] = event;
+		
+		if (event < previous)
+			siftUp(positions[device]);
+		else
+			siftDown(positions[device]);
+	}
+	
+	/*
+	 * Heap Maintenance
+	 */
+	private final void siftUp(int position)
+	{
+		while (position > 0) {
+			int parent = (position - 1) >> 1;
+			
+			if (isBefore(heap[parent], heap[position]))
+				break;
+			
+			swap(position, parent);
+			position = parent;
+		}
+	}
+	
+	private final void siftDown(int position)
+	{
+		while (true) {
+			int child = (position << 1) + 1;
+			
+			if (child >= DEVICES)
+				break;
+			
+			if (child + 1 < DEVICES && isBefore(heap[child + 1], heap[child]))
+				child++;
+			
+			if (isBefore(heap[position], heap[child]))
+				break;
+			
+			swap(position, child);
+			position = child;
+		}
+	}
+	
+	private final boolean isBefore(int first, int second)
+	{
+		return events[first] < events[second] || (events[first] == events[second] && first < second);
+	}
+	
+	private final void swap(int first, int second)
+	{
+		int device = heap[first];
+		
+		heap[first] = heap[second];
+		heap[second] = device;
+		
+		positions[heap[first]] = first;
+		positions[heap[second]] = second;
+	}
+}
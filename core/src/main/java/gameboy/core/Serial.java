@@ -21,6 +21,8 @@
  */
 package gameboy.core;
 
+import java.nio.ByteBuffer;
+
 public class Serial {
 	/*
 	 * Gameboy Clock Speed (1048576 Hz)
@@ -68,7 +70,34 @@ public class Serial {
 		sb = 0x00;
 		sc = 0x00;
 	}
+	
+	/*
+	 * Save State
+	 */
+	public final int getStateSize()
+	{
+		return 2 + 4;
+	}
+	
+	public final void saveState(ByteBuffer buffer)
+	{
+		buffer.put((byte) sb);
+		buffer.put((byte) sc);
+		buffer.putInt(cycles);
+	}
+	
+	public final void loadState(ByteBuffer buffer)
+	{
+		sb = buffer.get() & 0xFF;
+		sc = buffer.get() & 0xFF;
+		cycles = buffer.getInt();
+	}
 
+	public final boolean isTransferring()
+	{
+		return (sc & 0x81) == 0x81;
+	}
+	
 	public final int cycles()
 	{
 		return cycles;
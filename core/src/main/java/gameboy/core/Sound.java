@@ -22,6 +22,7 @@
 package gameboy.core;
 
 import gameboy.core.driver.SoundDriver;
+import java.nio.ByteBuffer;
 
 public final class Sound {
 	/*
@@ -107,7 +108,6 @@ public final class Sound {
     private int audio3Index;
     private int audio3Length;
     private int audio3Frequency;
-    private byte[] audio3WavePattern = new byte[16];
     
     /*
      * Audio Channel 4
@@ -139,30 +139,65 @@ public final class Sound {
 	private int frames;
 	private int cycles;
 	
+	/*
+	 * Muting (no output while emulating frames that are never heard)
+	 */
+	private boolean muted;
+	
     /*
      * Frequency Table
      */
-    private int[] frequencyTable = new int[2048];
-	private int[] noiseFreqRatioTable = new int[8];
+    private int[] frequencyTable;
+	private int[] noiseFreqRatioTable;
 
 	/*
 	 * Noise Tables
 	 */
-	private int[] noiseStep7Table = new int[128 / 32];
-	private int[] noiseStep15Table = new int[32768 / 32];
+	private int[] noiseStep7Table;
+	private int[] noiseStep15Table;
+	
+	/*
+	 * State Arena (wave pattern RAM)
+	 */
+	private byte[] arena;
 	
 
-	public Sound(SoundDriver soundDriver)
+	public Sound(SoundDriver soundDriver, byte[] arena)
 	{
 		driver = soundDriver;
 		
+		this.arena = arena;
+		
+		frequencyTable = new int[2048];
+		noiseFreqRatioTable = new int[8];
+		noiseStep7Table = new int[128 / 32];
+		noiseStep15Table = new int[32768 / 32];
+		
 		generateFrequencyTables();
 		
 		generateNoiseTables();
 		
 		reset();
 	}
+	
+	public Sound(Sound sound)
+	{
+		driver = sound.driver;
+		
+		arena = sound.arena;
+		
+		// the tables only depend on the sample rate and are never written again
+		frequencyTable = sound.frequencyTable;
+		noiseFreqRatioTable = sound.noiseFreqRatioTable;
+		noiseStep7Table = sound.noiseStep7Table;
+		noiseStep15Table = sound.noiseStep15Table;
+	}
 
+	public final void setArena(byte[] arena)
+	{
+		this.arena = arena;
+	}
+	
 	public final void start()
 	{
 		driver.start();
@@ -173,6 +208,16 @@ public final class Sound {
 		driver.stop();
 	}
 	
+	public final boolean isMuted()
+	{
+		return muted;
+	}
+	
+	public final void setMuted(boolean muted)
+	{
+		this.muted = muted;
+	}
+	
 	public final int cycles()
 	{
 		return cycles;
@@ -190,9 +235,15 @@ public final class Sound {
 				
 				int length = (frames / SOUND_CLOCK) << 1;
 				
-				mixAudio(buffer, length);
+				// muted audio is not mixed, the channels still move on
+				if (muted) {
+					skipAudio(length);
+				}
+				else {
+					mixAudio(buffer, length);
 				
-				driver.write(buffer, length);
+					driver.write(buffer, length);
+				}
 			
 				frames %= SOUND_CLOCK;
 			}
@@ -237,6 +288,116 @@ public final class Sound {
 		for (int address = 0xFF30; address <= 0xFF3F; address++)
 			write(address, (address & 1) == 0 ? 0x00 : 0xFF);
 	}
+	
+	/*
+	 * Save State
+	 */
+	public final int getStateSize()
+	{
+		return 21 + 4 * (6 + 5 + 3 + 5 + 2);
+	}
+	
+	public final void saveState(ByteBuffer buffer)
+	{
+		buffer.put((byte) nr10);
+		buffer.put((byte) nr11);
+		buffer.put((byte) nr12);
+		buffer.put((byte) nr13);
+		buffer.put((byte) nr14);
+		buffer.put((byte) nr21);
+		buffer.put((byte) nr22);
+		buffer.put((byte) nr23);
+		buffer.put((byte) nr24);
+		buffer.put((byte) nr30);
+		buffer.put((byte) nr31);
+		buffer.put((byte) nr32);
+		buffer.put((byte) nr33);
+		buffer.put((byte) nr34);
+		buffer.put((byte) nr41);
+		buffer.put((byte) nr42);
+		buffer.put((byte) nr43);
+		buffer.put((byte) nr44);
+		buffer.put((byte) nr50);
+		buffer.put((byte) nr51);
+		buffer.put((byte) nr52);
+		
+		buffer.putInt(audio1Index);
+		buffer.putInt(audio1Length);
+		buffer.putInt(audio1Volume);
+		buffer.putInt(audio1EnvelopeLength);
+		buffer.putInt(audio1SweepLength);
+		buffer.putInt(audio1Frequency);
+		
+		buffer.putInt(audio2Index);
+		buffer.putInt(audio2Length);
+		buffer.putInt(audio2Volume);
+		buffer.putInt(audio2EnvelopeLength);
+		buffer.putInt(audio2Frequency);
+		
+		buffer.putInt(audio3Index);
+		buffer.putInt(audio3Length);
+		buffer.putInt(audio3Frequency);
+		
+		buffer.putInt(audio4Index);
+		buffer.putInt(audio4Length);
+		buffer.putInt(audio4Volume);
+		buffer.putInt(audio4EnvelopeLength);
+		buffer.putInt(audio4Frequency);
+		
+		buffer.putInt(frames);
+		buffer.putInt(cycles);
+	}
+	
+	public final void loadState(ByteBuffer buffer)
+	{
+		nr10 = buffer.get() & 0xFF;
+		nr11 = buffer.get() & 0xFF;
+		nr12 = buffer.get() & 0xFF;
+		nr13 = buffer.get() & 0xFF;
+		nr14 = buffer.get() & 0xFF;
+		nr21 = buffer.get() & 0xFF;
+		nr22 = buffer.get() & 0xFF;
+		nr23 = buffer.get() & 0xFF;
+		nr24 = buffer.get() & 0xFF;
+		nr30 = buffer.get() & 0xFF;
+		nr31 = buffer.get() & 0xFF;
+		nr32 = buffer.get() & 0xFF;
+		nr33 = buffer.get() & 0xFF;
+		nr34 = buffer.get() & 0xFF;
+		nr41 = buffer.get() & 0xFF;
+		nr42 = buffer.get() & 0xFF;
+		nr43 = buffer.get() & 0xFF;
+		nr44 = buffer.get() & 0xFF;
+		nr50 = buffer.get() & 0xFF;
+		nr51 = buffer.get() & 0xFF;
+		nr52 = buffer.get() & 0xFF;
+		
+		audio1Index = buffer.getInt();
+		audio1Length = buffer.getInt();
+		audio1Volume = buffer.getInt();
+		audio1EnvelopeLength = buffer.getInt();
+		audio1SweepLength = buffer.getInt();
+		audio1Frequency = buffer.getInt();
+		
+		audio2Index = buffer.getInt();
+		audio2Length = buffer.getInt();
+		audio2Volume = buffer.getInt();
+		audio2EnvelopeLength = buffer.getInt();
+		audio2Frequency = buffer.getInt();
+		
+		audio3Index = buffer.getInt();
+		audio3Length = buffer.getInt();
+		audio3Frequency = buffer.getInt();
+		
+		audio4Index = buffer.getInt();
+		audio4Length = buffer.getInt();
+		audio4Volume = buffer.getInt();
+		audio4EnvelopeLength = buffer.getInt();
+		audio4Frequency = buffer.getInt();
+		
+		frames = buffer.getInt();
+		cycles = buffer.getInt();
+	}
 
 	public final int read(int address)
 	{
@@ -411,6 +572,27 @@ public final class Sound {
 			if ((nr52 & 0x08) != 0)
 				mixAudio4(buffer, length);
 		}
+	}
+	
+	private final void skipAudio(int length)
+	{
+		int samples = length >> 1;
+		
+		if ((nr52 & 0x80) != 0) {
+			if ((nr52 & 0x01) != 0)
+				audio1Index += audio1Frequency * samples;
+			
+			if ((nr52 & 0x02) != 0)
+				audio2Index += audio2Frequency * samples;
+			
+			if ((nr52 & 0x04) != 0)
+				audio3Index += audio3Frequency * samples;
+			
+			if ((nr52 & 0x08) != 0 && samples > 0) {
+				audio4Index += audio4Frequency * samples;
+				audio4Index &= (nr43 & 0x08) != 0 ? 0x7FFFFF : 0x7FFFFFFF;
+			}
+		}
 	}	
 	
 	/*
@@ -776,12 +958,12 @@ public final class Sound {
 
 	private final void setAudio3WavePattern(int address, int data)
 	{
-		audio3WavePattern[address & 0x0F] = (byte) data;
+		arena[Arena.WAVE + (address & 0x0F)] = (byte) data;
 	}
 	
 	private final int getAudio3WavePattern(int address)
 	{
-		return audio3WavePattern[address & 0x0F] & 0xFF;
+		return arena[Arena.WAVE + (address & 0x0F)] & 0xFF;
 	}
 	
 	private final void updateAudio3()
@@ -805,7 +987,7 @@ public final class Sound {
 		for (int index = 0; index < length; index += 2) {
 			audio3Index += audio3Frequency;
 			
-			int sample = audio3WavePattern[(audio3Index >> 23) & 0x0F];
+			int sample = arena[Arena.WAVE + ((audio3Index >> 23) & 0x0F)];
 			
 			if ((audio3Index & (1 << 22)) != 0)
 				sample = (sample >> 0) & 0x0F;
@@ -0,0 +1,381 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Save State File
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+public final class StateFile {
+	/*
+	 * File Header (magic "MGBS", format version, cartridge checksums, chunk count)
+	 */
+	private static final int MAGIC = 0x4D474253;
+	private static final int HEADER_SIZE = 16;
+	
+	public static final int VERSION = 1;
+	
+	/*
+	 * Chunk Header (tag, version, raw length, packed length, CRC-32 of the raw bytes);
+	 * fields are only ever appended to a chunk, a missing tail reads as zeros and
+	 * an unknown tail or chunk is skipped, any other change bumps the version of
+	 * that chunk alone and its reader migrates the older versions
+	 */
+	private static final int CHUNK_HEADER_SIZE = 20;
+	private static final int MAX_CHUNKS = 32;
+	
+	/*
+	 * Chunk Tags
+	 */
+	public static final int SCHEDULER	= 0x53434844;		/* SCHD */
+	public static final int CPU			= 0x43505520;		/* CPU  */
+	public static final int INTERRUPT	= 0x494E5452;		/* INTR */
+	public static final int RAM			= 0x52414D20;		/* RAM  */
+	public static final int CARTRIDGE	= 0x43415254;		/* CART */
+	public static final int SERIAL		= 0x5345524C;		/* SERL */
+	public static final int TIMER		= 0x54494D52;		/* TIMR */
+	public static final int JOYPAD		= 0x4A4F5950;		/* JOYP */
+	public static final int VIDEO		= 0x56494445;		/* VIDE */
+	public static final int SOUND		= 0x534F554E;		/* SOUN */
+	
+	/*
+	 * Chunk Payloads (every device stands at the SCHD time, no internal bookkeeping)
+	 *   SCHD 2	time, the absolute next event time of each device (NEVER when idle)
+	 *   CPU 2	A, F, B, C, D, E, H, L, SP, PC, IME, HALT
+	 *   TIMR 2	16 bit internal divider (DIV is its top byte), TIMA, TMA, TAC, cycles counted towards the next TIMA step
+	 *   RAM, CART, VIDE, SOUN	the memories, then the device registers
+	 * Version 1 of SCHD, CPU and TIMR held the in-memory layouts with the devices
+	 * lagging behind the CPU, the other chunks read the same under 1 and 2
+	 */
+	private static final int[] REQUIRED = {
+		SCHEDULER, CPU, INTERRUPT, RAM, CARTRIDGE, SERIAL, TIMER, JOYPAD, VIDEO, SOUND
+	};
+	
+	/*
+	 * Chunk Directory
+	 */
+	private int chunks;
+	private int[] tags = new int[MAX_CHUNKS];
+	private int[] versions = new int[MAX_CHUNKS];
+	private int[] offsets = new int[MAX_CHUNKS];
+	private int[] packedOffsets = new int[MAX_CHUNKS];
+	private int[] lengths = new int[MAX_CHUNKS];
+	private int[] packedLengths = new int[MAX_CHUNKS];
+	private int[] checksums = new int[MAX_CHUNKS];
+	
+	/*
+	 * Cartridge Checksums (header checksum and global checksum)
+	 */
+	private int cartridge;
+	
+	/*
+	 * Raw Chunks and Packed File (reused, grown on demand)
+	 */
+	private byte[] raw = new byte[0];
+	private byte[] packed = new byte[0];
+	private ByteBuffer rawBuffer = ByteBuffer.wrap(raw);
+	private ByteBuffer packedBuffer = ByteBuffer.wrap(packed);
+	private ByteBuffer[] gather = new ByteBuffer[MAX_CHUNKS + 1];
+	private int used;
+	
+	private Compressor compressor = new Compressor();
+	private CRC32 crc = new CRC32();
+	
+	public StateFile()
+	{
+	}
+	
+	public final int getCartridge()
+	{
+		return cartridge;
+	}
+	
+	/*
+	 * Writing (chunks are filled in place, compressed and written with one gathered write)
+	 */
+	public final void begin(int cartridge, int capacity)
+	{
+		this.cartridge = cartridge;
+		
+		ensureRaw(capacity);
+		
+		chunks = 0;
+		used = 0;
+	}
+	
+	public final ByteBuffer chunk(int tag, int version, int length)
+	{
+		checkChunk();
+		
+		if (chunks == MAX_CHUNKS)
+			throw new RuntimeException("Too many save state chunks");
+		
+		tags[chunks] = tag;
+		versions[chunks] = version;
+		offsets[chunks] = used;
+		lengths[chunks] = length;
+		chunks++;
+		
+		rawBuffer.clear();
+		rawBuffer.position(used);
+		rawBuffer.limit(used + length);
+		
+		used += length;
+		
+		return rawBuffer;
+	}
+	
+	public final void write(FileChannel channel)
+	{
+		checkChunk();
+		
+		int size = HEADER_SIZE;
+		
+		for (int chunk = 0; chunk < chunks; chunk++)
+			size += CHUNK_HEADER_SIZE + Compressor.getMaxSize(lengths[chunk]);
+		
+		ensurePacked(size);
+		
+		packedBuffer.clear();
+		packedBuffer.putInt(MAGIC);
+		packedBuffer.putInt(VERSION);
+		packedBuffer.putInt(cartridge);
+		packedBuffer.putInt(chunks);
+		
+		setGather(0, 0, HEADER_SIZE);
+		
+		int offset = HEADER_SIZE;
+		
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			int packedLength = compressor.compress(raw, offsets[chunk], lengths[chunk], packed, offset + CHUNK_HEADER_SIZE);
+			
+			crc.reset();
+			crc.update(raw, offsets[chunk], lengths[chunk]);
+			
+			packedBuffer.clear();
+			packedBuffer.position(offset);
+			packedBuffer.putInt(tags[chunk]);
+			packedBuffer.putInt(versions[chunk]);
+			packedBuffer.putInt(lengths[chunk]);
+			packedBuffer.putInt(packedLength);
+			packedBuffer.putInt((int) crc.getValue());
+			
+			setGather(chunk + 1, offset, CHUNK_HEADER_SIZE + packedLength);
+			
+			offset += CHUNK_HEADER_SIZE + packedLength;
+		}
+		
+		try {
+			long remaining = offset;
+			
+			while (remaining > 0)
+				remaining -= channel.write(gather, 0, chunks + 1);
+			
+			channel.truncate(channel.position());
+		}
+		catch (IOException exception) {
+			throw new RuntimeException("Could not write save state");
+		}
+	}
+	
+	/*
+	 * Reading (the whole file is read and checked before any chunk is handed out)
+	 */
+	public final void read(FileChannel channel)
+	{
+		try {
+			long size = channel.size() - channel.position();
+			
+			if (size < HEADER_SIZE || size > Integer.MAX_VALUE)
+				throw new RuntimeException("Save state is corrupted");
+			
+			ensurePacked((int) size);
+			
+			packedBuffer.clear();
+			packedBuffer.limit((int) size);
+			
+			while (packedBuffer.hasRemaining()) {
+				if (channel.read(packedBuffer) < 0)
+					throw new RuntimeException("Save state is truncated");
+			}
+		}
+		catch (IOException exception) {
+			throw new RuntimeException("Could not read save state");
+		}
+		
+		packedBuffer.flip();
+		
+		if (packedBuffer.getInt() != MAGIC)
+			throw new RuntimeException("Not a save state");
+		
+		if (packedBuffer.getInt() > VERSION)
+			throw new RuntimeException("Unsupported save state version");
+		
+		cartridge = packedBuffer.getInt();
+		chunks = packedBuffer.getInt();
+		
+		if (chunks < 0 || chunks > MAX_CHUNKS)
+			throw new RuntimeException("Save state is corrupted");
+		
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			if (packedBuffer.remaining() < CHUNK_HEADER_SIZE)
+				throw new RuntimeException("Save state is truncated");
+			
+			tags[chunk] = packedBuffer.getInt();
+			versions[chunk] = packedBuffer.getInt();
+			lengths[chunk] = packedBuffer.getInt();
+			packedLengths[chunk] = packedBuffer.getInt();
+			checksums[chunk] = packedBuffer.getInt();
+			packedOffsets[chunk] = packedBuffer.position();
+			
+			if (lengths[chunk] < 0 || packedLengths[chunk] < 0 || packedLengths[chunk] > packedBuffer.remaining())
+				throw new RuntimeException("Save state is truncated");
+			
+			packedBuffer.position(packedOffsets[chunk] + packedLengths[chunk]);
+		}
+		
+		for (int index = 0; index < REQUIRED.length; index++) {
+			if (findChunk(REQUIRED[index]) < 0)
+				throw new RuntimeException("Save state chunk is missing");
+		}
+		
+		used = 0;
+		
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			offsets[chunk] = used;
+			used += lengths[chunk];
+		}
+		
+		ensureRaw(used);
+		
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			Compressor.decompress(packed, packedOffsets[chunk], packedLengths[chunk], raw, offsets[chunk], lengths[chunk]);
+			
+			crc.reset();
+			crc.update(raw, offsets[chunk], lengths[chunk]);
+			
+			if ((int) crc.getValue() != checksums[chunk])
+				throw new RuntimeException("Save state is corrupted");
+		}
+	}
+	
+	public final boolean hasChunk(int tag)
+	{
+		return findChunk(tag) >= 0;
+	}
+	
+	public final int getVersion(int tag)
+	{
+		int chunk = findChunk(tag);
+		
+		if (chunk < 0)
+			throw new RuntimeException("Save state chunk is missing");
+		
+		return versions[chunk];
+	}
+	
+	public final void checkVersion(int tag, int version)
+	{
+		// the reader migrates any older version, a newer one is beyond it
+		if (getVersion(tag) > version)
+			throw new RuntimeException("Unsupported save state chunk version");
+	}
+	
+	public final ByteBuffer getChunk(int tag, int length)
+	{
+		// the buffer is only valid until the next chunk is requested
+		int chunk = findChunk(tag);
+		
+		if (chunk < 0)
+			throw new RuntimeException("Save state chunk is missing");
+		
+		int offset = offsets[chunk];
+		
+		if (length > lengths[chunk]) {
+			// fields appended since the file was written read as zeros
+			ensureRaw(used + length);
+			
+			System.arraycopy(raw, offset, raw, used, lengths[chunk]);
+			
+			for (int index = used + lengths[chunk]; index < used + length; index++)
+				raw[index] = 0;
+			
+			offset = used;
+		}
+		
+		rawBuffer.clear();
+		rawBuffer.position(offset);
+		rawBuffer.limit(offset + Math.max(length, lengths[chunk]));
+		
+		return rawBuffer;
+	}
+	
+	private final int findChunk(int tag)
+	{
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			if (tags[chunk] == tag)
+				return chunk;
+		}
+		
+		return -1;
+	}
+	
+	private final void checkChunk()
+	{
+		// the previous chunk must have been filled completely
+		if (chunks > 0 && rawBuffer.position() != offsets[chunks - 1] + lengths[chunks - 1])
+			throw new RuntimeException("Save state chunk size mismatch");
+	}
+	
+	private final void ensureRaw(int size)
+	{
+		if (raw.length < size) {
+			byte[] buffer = new byte[size];
+			
+			System.arraycopy(raw, 0, buffer, 0, raw.length);
+			
+			raw = buffer;
+			rawBuffer = ByteBuffer.wrap(raw);
+		}
+	}
+	
+	private final void ensurePacked(int size)
+	{
+		if (packed.length < size) {
+			packed = new byte[size];
+			packedBuffer = ByteBuffer.wrap(packed);
+			
+			for (int index = 0; index < gather.length; index++)
+				gather[index] = ByteBuffer.wrap(packed);
+		}
+	}
+	
+	private final void setGather(int index, int offset, int length)
+	{
+		ByteBuffer buffer = gather[index];
+		
+		buffer.clear();
+		buffer.position(offset);
+		buffer.limit(offset + length);
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * State Hash
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+import java.nio.ByteBuffer;
+
+public final class StateHash {
+	/*
+	 * Page Size (the arena is hashed in 256 byte pages)
+	 */
+	public static final int PAGE_SHIFT = 8;
+	public static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+	
+	/*
+	 * Hash Constants
+	 */
+	private static final long SEED = 0x9E3779B97F4A7C15L;
+	private static final long PRIME = 0x100000001B3L;
+	
+	/*
+	 * Page Hashes (a written page is marked dirty and rehashed on demand)
+	 */
+	private boolean[] dirty;
+	private long[] hashes;
+	
+	/*
+	 * Memory Hash (the page hashes xor-ed together)
+	 */
+	private long memoryHash;
+	
+	/*
+	 * Register Buffer
+	 */
+	private ByteBuffer registers = ByteBuffer.allocate(0);
+	
+	public StateHash(int size)
+	{
+		dirty = new boolean[(size + PAGE_SIZE - 1) >> PAGE_SHIFT];
+		hashes = new long[dirty.length];
+		
+		invalidate();
+	}
+	
+	public StateHash(StateHash stateHash)
+	{
+		dirty = stateHash.dirty.clone();
+		hashes = stateHash.hashes.clone();
+		memoryHash = stateHash.memoryHash;
+	}
+	
+	public final boolean[] getDirtyPages()
+	{
+		return dirty;
+	}
+	
+	public final void invalidate()
+	{
+		for (int page = 0; page < dirty.length; page++)
+			dirty[page] = true;
+	}
+	
+	public final void invalidate(int offset, int length)
+	{
+		for (int page = offset >> PAGE_SHIFT; page <= (offset + length - 1) >> PAGE_SHIFT; page++)
+			dirty[page] = true;
+	}
+	
+	public final ByteBuffer getRegisters(int size)
+	{
+		if (registers.capacity() < size)
+			registers = ByteBuffer.allocate(size);
+		
+		registers.clear();
+		
+		return registers;
+	}
+	
+	/*
+	 * Hashing (only the dirty pages are read, the registers are hashed every time)
+	 */
+	public final long hash(byte[] arena)
+	{
+		for (int page = 0; page < dirty.length; page++) {
+			if (dirty[page]) {
+				dirty[page] = false;
+				
+				int offset = page << PAGE_SHIFT;
+				long hash = hash(arena, offset, Math.min(PAGE_SIZE, arena.length - offset), SEED + page);
+				
+				memoryHash ^= hashes[page] ^ hash;
+				hashes[page] = hash;
+			}
+		}
+		
+		return mix(memoryHash ^ hash(registers.array(), 0, registers.position(), SEED));
+	}
+	
+	public static final long hash(byte[] data, int offset, int length, long seed)
+	{
+		long hash = mix(seed);
+		int index = offset;
+		int end = offset + length;
+		
+		// every step is a bijection, so a single changed word always shows
+		while (index + 4 <= end) {
+			int word = (data[index] & 0xFF) + ((data[index + 1] & 0xFF) << 8) +
+				((data[index + 2] & 0xFF) << 16) + ((data[index + 3] & 0xFF) << 24);
+			
+			hash = (hash ^ (word & 0xFFFFFFFFL)) * PRIME;
+			index += 4;
+		}
+		
+		while (index < end)
+			hash = (hash ^ (data[index++] & 0xFF)) * PRIME;
+		
+		return mix(hash ^ length);
+	}
+	
+	private static final long mix(long hash)
+	{
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB9FE1A85EC53L;
+		hash ^= hash >>> 33;
+		
+		return hash;
+	}
+}
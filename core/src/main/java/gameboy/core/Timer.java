@@ -21,6 +21,8 @@
  */
 package gameboy.core;
 
+import java.nio.ByteBuffer;
+
 public class Timer {
 	/*
 	 * Gameboy Clock Speed (1048576 Hz)
@@ -50,6 +52,11 @@ public class Timer {
 	public static final int TMA		= 0xFF06;	/* Timer Modulo */
 	public static final int TAC		= 0xFF07;	/* Timer Control */
 	
+	/*
+	 * Save State File Registers Version
+	 */
+	public static final int REGISTERS_VERSION = 2;
+	
 	/*
 	 * Registers
 	 */
@@ -82,6 +89,75 @@ public class Timer {
 		timerCycles = timerClock = TIMER_CLOCK[tac & 0x03];
 	}
 	
+	/*
+	 * Save State
+	 */
+	public final int getStateSize()
+	{
+		return 4 + 4 * 3;
+	}
+	
+	public final void saveState(ByteBuffer buffer)
+	{
+		buffer.put((byte) div);
+		buffer.put((byte) tima);
+		buffer.put((byte) tma);
+		buffer.put((byte) tac);
+		buffer.putInt(dividerCycles);
+		buffer.putInt(timerCycles);
+		buffer.putInt(timerClock);
+	}
+	
+	public final void loadState(ByteBuffer buffer)
+	{
+		div = buffer.get() & 0xFF;
+		tima = buffer.get() & 0xFF;
+		tma = buffer.get() & 0xFF;
+		tac = buffer.get() & 0xFF;
+		dividerCycles = buffer.getInt();
+		timerCycles = buffer.getInt();
+		timerClock = buffer.getInt();
+	}
+	
+	/*
+	 * Save State Files (the 16 bit internal divider, whose top byte is DIV,
+	 * and the cycles TIMA has counted towards its next step; version 1 was
+	 * the save state layout)
+	 */
+	public final int getRegistersSize()
+	{
+		return 2 + 3 + 2;
+	}
+	
+	public final void saveRegisters(ByteBuffer buffer)
+	{
+		buffer.putShort((short) ((div << 8) + ((DIV_CLOCK - dividerCycles) << 2)));
+		buffer.put((byte) tima);
+		buffer.put((byte) tma);
+		buffer.put((byte) tac);
+		buffer.putShort((short) (timerClock - timerCycles));
+	}
+	
+	public final void loadRegisters(ByteBuffer buffer, int version)
+	{
+		if (version == 1) {
+			loadState(buffer);
+			return;
+		}
+		
+		int divider = buffer.getShort() & 0xFFFF;
+		
+		div = divider >> 8;
+		dividerCycles = DIV_CLOCK - ((divider & 0xFF) >> 2);
+		
+		tima = buffer.get() & 0xFF;
+		tma = buffer.get() & 0xFF;
+		tac = buffer.get() & 0xFF;
+		
+		timerClock = TIMER_CLOCK[tac & 0x03];
+		timerCycles = timerClock - (buffer.getShort() & 0xFFFF);
+	}
+	
 	public final void write(int address, int data)
 	{
 		switch (address) {
@@ -159,13 +235,16 @@ public class Timer {
 		return 0xF8 | tac;
 	}
 	
+	public final boolean isEnabled()
+	{
+		return (tac & 0x04) != 0;
+	}
+	
 	public final int cycles()
 	{
-		if ((tac & 0x04) != 0) {
-			if (timerCycles < dividerCycles)
-				return timerCycles;
-		}
-		return dividerCycles;
+		// only the TIMA overflow is an event, DIV and TIMA are brought
+		// up to date when the timer is emulated before a register access
+		return timerCycles + (0xFF - tima) * timerClock;
 	}
 
 	public final void emulate(int ticks)
@@ -178,9 +257,11 @@ public class Timer {
 	{
 		dividerCycles -= ticks;
 		
-		while (dividerCycles <= 0) {
-			div = (div + 1) & 0xFF;
-			dividerCycles += DIV_CLOCK;
+		if (dividerCycles <= 0) {
+			int count = 1 - dividerCycles / DIV_CLOCK;
+			
+			div = (div + count) & 0xFF;
+			dividerCycles += count * DIV_CLOCK;
 		}
 	}
 	
@@ -189,12 +270,15 @@ public class Timer {
 		if ((tac & 0x04) != 0) {
 			timerCycles -= ticks;
 
-			while (timerCycles <= 0) {
-				tima = (tima + 1) & 0xFF;
-				timerCycles += timerClock;
+			if (timerCycles <= 0) {
+				int count = 1 - timerCycles / timerClock;
+				
+				tima += count;
+				timerCycles += count * timerClock;
 				
-				if (tima == 0x00) {
-					tima = tma;
+				if (tima > 0xFF) {
+					// TIMA reloads from TMA on every overflow
+					tima = tma + (tima - 0x100) % (0x100 - tma);
 					
 					interrupt.raise(Interrupt.TIMER);
 				}
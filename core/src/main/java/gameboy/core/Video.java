@@ -22,6 +22,7 @@
 package gameboy.core;
 
 import gameboy.core.driver.VideoDriver;
+import java.nio.ByteBuffer;
 
 public final class Video {
 	/*
@@ -78,6 +79,11 @@ public final class Video {
 	private static final int MODE_1_BEGIN_TICKS	= 8;	/* V-Blank Line 144 */
 	private static final int MODE_1_END_TICKS	= 1;	/* V-Blank Line 153 */
 	
+	/*
+	 * Frame Duration (154 lines)
+	 */
+	public static final int FRAME_TICKS = 154 * MODE_1_TICKS;
+	
 	/*
 	 * Objects per Line
 	 */
@@ -93,14 +99,9 @@ public final class Video {
 	};
 
 	/*
-	 * OAM Registers
-	 */
-	private byte[] oam = new byte[OAM_SIZE];
-
-	/*
-	 * Video RAM
+	 * State Arena (video RAM and OAM registers)
 	 */
-	private byte[] vram = new byte[VRAM_SIZE];
+	private byte[] arena;
 	
 	/*
 	 * LCD Registers 
@@ -124,6 +125,16 @@ public final class Video {
 	private int frames;
 	private int frameSkip;
 	
+	/*
+	 * Frame Counter (completed frames, not part of the saved state)
+	 */
+	private int frameCount;
+	
+	/*
+	 * Rendering (off while emulating frames that are never shown)
+	 */
+	private boolean rendering = true;
+	
 	private boolean transfer;
 	private boolean display;
 	private boolean vblank;
@@ -152,14 +163,54 @@ public final class Video {
 	private Memory memory;
 	
 
-	public Video(VideoDriver driver, Interrupt interrupt, Memory memory)
+	public Video(VideoDriver driver, Interrupt interrupt, Memory memory, byte[] arena)
 	{
 		this.driver = driver;
 		this.interrupt = interrupt;
 		this.memory = memory;
+		this.arena = arena;
 		
 		reset();
 	}
+	
+	public Video(Video video, Interrupt interrupt, Memory memory)
+	{
+		this.driver = video.driver;
+		this.interrupt = interrupt;
+		this.memory = memory;
+		
+		arena = video.arena;
+		
+		lcdc = video.lcdc;
+		stat = video.stat;
+		scy = video.scy;
+		scx = video.scx;
+		ly = video.ly;
+		lyc = video.lyc;
+		dma = video.dma;
+		bgp = video.bgp;
+		obp0 = video.obp0;
+		obp1 = video.obp1;
+		wy = video.wy;
+		wx = video.wx;
+		wly = video.wly;
+		
+		cycles = video.cycles;
+		
+		frames = video.frames;
+		frameSkip = video.frameSkip;
+		frameCount = video.frameCount;
+		
+		transfer = video.transfer;
+		display = video.display;
+		vblank = video.vblank;
+		dirty = true;
+	}
+	
+	public final void setArena(byte[] arena)
+	{
+		this.arena = arena;
+	}
 
 	public final int getFrameSkip()
 	{
@@ -171,6 +222,26 @@ public final class Video {
 		this.frameSkip = frameSkip;
 	}
 	
+	public final boolean isRendering()
+	{
+		return rendering;
+	}
+	
+	public final void setRendering(boolean rendering)
+	{
+		this.rendering = rendering;
+	}
+	
+	public final int getFrameCount()
+	{
+		return frameCount;
+	}
+	
+	public final int[] getPixels()
+	{
+		return driver.getPixels();
+	}
+	
 	public final void reset()
 	{
 		cycles = MODE_2_TICKS;
@@ -192,11 +263,70 @@ public final class Video {
 		vblank = true;
 		dirty = true;
 		
-		for (int index = 0; index < vram.length; index++)
-			vram[index] = 0x00;
+		for (int index = 0; index < VRAM_SIZE; index++)
+			arena[Arena.VRAM + index] = 0x00;
+		
+		for (int index = 0; index < OAM_SIZE; index++)
+			arena[Arena.OAM + index] = 0x00;
+	}
+	
+	/*
+	 * Save State
+	 */
+	public final int getStateSize()
+	{
+		return 13 + 4 + 4 + 3;
+	}
+	
+	public final void saveState(ByteBuffer buffer)
+	{
+		buffer.put((byte) lcdc);
+		buffer.put((byte) stat);
+		buffer.put((byte) scy);
+		buffer.put((byte) scx);
+		buffer.put((byte) ly);
+		buffer.put((byte) lyc);
+		buffer.put((byte) dma);
+		buffer.put((byte) bgp);
+		buffer.put((byte) obp0);
+		buffer.put((byte) obp1);
+		buffer.put((byte) wy);
+		buffer.put((byte) wx);
+		buffer.put((byte) wly);
+		
+		buffer.putInt(cycles);
+		buffer.putInt(frames);
 		
-		for (int index = 0; index < oam.length; index++)
-			oam[index] = 0x00;
+		buffer.put((byte) (transfer ? 1 : 0));
+		buffer.put((byte) (display ? 1 : 0));
+		buffer.put((byte) (vblank ? 1 : 0));
+	}
+	
+	public final void loadState(ByteBuffer buffer)
+	{
+		lcdc = buffer.get() & 0xFF;
+		stat = buffer.get() & 0xFF;
+		scy = buffer.get() & 0xFF;
+		scx = buffer.get() & 0xFF;
+		ly = buffer.get() & 0xFF;
+		lyc = buffer.get() & 0xFF;
+		dma = buffer.get() & 0xFF;
+		bgp = buffer.get() & 0xFF;
+		obp0 = buffer.get() & 0xFF;
+		obp1 = buffer.get() & 0xFF;
+		wy = buffer.get() & 0xFF;
+		wx = buffer.get() & 0xFF;
+		wly = buffer.get() & 0xFF;
+		
+		cycles = buffer.getInt();
+		frames = buffer.getInt();
+		
+		transfer = buffer.get() != 0;
+		display = buffer.get() != 0;
+		vblank = buffer.get() != 0;
+		
+		// the palette cache is rebuilt from the loaded BGP, OBP0 and OBP1
+		dirty = true;
 	}
 
 	public final void write(int address, int data)
@@ -254,10 +384,10 @@ public final class Video {
 			
 		default:
 			if (address >= OAM_ADDR	&& address < OAM_ADDR + OAM_SIZE) {
-				oam[address - OAM_ADDR] = (byte) data;
+				arena[Arena.OAM + address - OAM_ADDR] = (byte) data;
 			}
 			else if (address >= VRAM_ADDR && address < VRAM_ADDR + VRAM_SIZE) {
-				vram[address - VRAM_ADDR] = (byte) data;
+				arena[Arena.VRAM + address - VRAM_ADDR] = (byte) data;
 			}
 			break;
 		}
@@ -304,16 +434,21 @@ public final class Video {
 			
 		default:
 			if (address >= OAM_ADDR	&& address < OAM_ADDR + OAM_SIZE) {
-				return oam[address - OAM_ADDR] & 0xFF;
+				return arena[Arena.OAM + address - OAM_ADDR] & 0xFF;
 			}
 			else if (address >= VRAM_ADDR && address < VRAM_ADDR + VRAM_SIZE) {
-				return vram[address - VRAM_ADDR] & 0xFF;
+				return arena[Arena.VRAM + address - VRAM_ADDR] & 0xFF;
 			}
 		}
 		
 		return 0xFF;
 	}
 	
+	public final boolean isEnabled()
+	{
+		return (lcdc & 0x80) != 0;
+	}
+	
 	public final int cycles()
 	{
 		return cycles;
@@ -419,7 +554,8 @@ public final class Video {
 				cycles = MODE_1_TICKS;
 				ly = 0;
 				
-				clearFrame();
+				if (rendering)
+					clearFrame();
 			}
 		}
 
@@ -475,7 +611,7 @@ public final class Video {
 		dma = data;
 		
 		for (int index = 0; index < OAM_SIZE; index++)
-			oam[index] = (byte) memory.read((dma << 8) + index);
+			arena[Arena.OAM + index] = (byte) memory.read((dma << 8) + index);
 	}
 	
 	private final void setBackgroundPalette(int data)
@@ -526,7 +662,7 @@ public final class Video {
 	private final void emulateTransfer()
 	{
 		if (transfer) {
-			if (display)
+			if (display && rendering)
 				drawLine();
 			
 			stat = (stat & 0xFC) | 0x03;
@@ -566,9 +702,11 @@ public final class Video {
 				interrupt.raise(Interrupt.LCD);
 		}
 		else {
-			if (display)
+			if (display && rendering)
 				drawFrame();
 			
+			frameCount++;
+			
 			if (frames++ >= frameSkip) {
 				display = true;
 				frames = 0;
@@ -727,14 +865,14 @@ public final class Video {
 
 		// search active objects
 		for (int offset = 0; offset < 4*40; offset += 4) {
-			int y = oam[offset + 0] & 0xFF;
-			int x = oam[offset + 1] & 0xFF;
+			int y = arena[Arena.OAM + offset + 0] & 0xFF;
+			int x = arena[Arena.OAM + offset + 1] & 0xFF;
 			
 			if (y <= 0 || y >= 144+16 || x <= 0 || x >= 168)
 				continue;
 			
-			int tile = oam[offset + 2] & 0xFF;
-			int flags = oam[offset + 3] & 0xFF;
+			int tile = arena[Arena.OAM + offset + 2] & 0xFF;
+			int flags = arena[Arena.OAM + offset + 3] & 0xFF;
 
 			y = ly - y + 16;
 			
@@ -788,7 +926,7 @@ public final class Video {
 	{
 		if ((lcdc & 0x10) != 0) {
 			while (x < 168) {
-				int tile = vram[tileMap] & 0xFF;
+				int tile = arena[Arena.VRAM + tileMap] & 0xFF;
 				
 				drawTile(x, tileData + (tile << 4));
 
@@ -799,7 +937,7 @@ public final class Video {
 		}
 		else {
 			while (x < 168) {
-				int tile = (vram[tileMap] ^ 0x80) & 0xFF;
+				int tile = (arena[Arena.VRAM + tileMap] ^ 0x80) & 0xFF;
 				
 				drawTile(x, tileData + (tile << 4));
 
@@ -812,7 +950,7 @@ public final class Video {
 
 	private final void drawTile(int x, int address)
 	{
-		int pattern = (vram[address] & 0xFF) + ((vram[address + 1] & 0xFF) << 8);
+		int pattern = (arena[Arena.VRAM + address] & 0xFF) + ((arena[Arena.VRAM + address + 1] & 0xFF) << 8);
 		
 		line[x + 0] = (pattern >> 7) & 0x0101;
 		line[x + 1] = (pattern >> 6) & 0x0101;
@@ -826,7 +964,7 @@ public final class Video {
 	
 	private final void drawObjectTile(int x, int address, int flags)
 	{
-		int pattern = (vram[address] & 0xFF) + ((vram[address + 1] & 0xFF) << 8);
+		int pattern = (arena[Arena.VRAM + address] & 0xFF) + ((arena[Arena.VRAM + address + 1] & 0xFF) << 8);
 		
 		int mask = 0;
 		
@@ -883,7 +1021,7 @@ public final class Video {
 
 	private final void drawOverlappedObjectTile(int x, int address, int flags)
 	{
-		int pattern = (vram[address] & 0xFF) + ((vram[address + 1] & 0xFF) << 8);
+		int pattern = (arena[Arena.VRAM + address] & 0xFF) + ((arena[Arena.VRAM + address + 1] & 0xFF) << 8);
 		
 		int mask = 0;
 		
@@ -0,0 +1,39 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Bank Mapper Interface
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core.cartridge;
+
+public interface BankMapper {
+	/*
+	 * Maps the switchable ROM bank (4000-7FFF)
+	 */
+	public void mapROM(byte[] rom, int offset);
+	
+	/*
+	 * Maps the external RAM bank (A000-BFFF)
+	 */
+	public void mapRAM(byte[] ram, int offset);
+	
+	/*
+	 * Unmaps the external RAM bank, accesses go through the controller
+	 */
+	public void unmapRAM();
+}
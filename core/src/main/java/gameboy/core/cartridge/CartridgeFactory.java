@@ -131,44 +131,44 @@ public class CartridgeFactory {
 		}
 	}
 	
-	public static final MBC createBankController(int cartridgeType, byte[] rom, byte[] ram, ClockDriver clock)
+	public static final MBC createBankController(int cartridgeType, byte[] rom, byte[] ram, int ramOffset, int ramLength, ClockDriver clock, BankMapper mapper)
 	{
 		switch (cartridgeType) {
 		case TYPE_ROM_ONLY:
 		case TYPE_MBC1:
 		case TYPE_MBC1_RAM:
 		case TYPE_MBC1_RAM_BATTERY:
-			return new MBC1(rom, ram);
+			return new MBC1(rom, ram, ramOffset, ramLength, mapper);
 
 		case TYPE_MBC2:
 		case TYPE_MBC2_BATTERY:
-			return new MBC2(rom, ram);
+			return new MBC2(rom, ram, ramOffset, ramLength, mapper);
 			
 		case TYPE_MBC3_RTC_BATTERY:
 		case TYPE_MBC3_RTC_RAM_BATTERY:
 		case TYPE_MBC3:
 		case TYPE_MBC3_RAM:
 		case TYPE_MBC3_RAM_BATTERY:
-			return new MBC3(rom, ram, clock);
+			return new MBC3(rom, ram, ramOffset, ramLength, clock, mapper);
 			
 		case TYPE_MBC5:
 		case TYPE_MBC5_RAM:
 		case TYPE_MBC5_RAM_BATTERY:
-			return new MBC5(rom, ram, false);
+			return new MBC5(rom, ram, ramOffset, ramLength, false, mapper);
 			
 		case TYPE_MBC5_RUMBLE:
 		case TYPE_MBC5_RUMBLE_RAM:
 		case TYPE_MBC5_RUMBLE_RAM_BATTERY:
-			return new MBC5(rom, ram, true);
+			return new MBC5(rom, ram, ramOffset, ramLength, true, mapper);
 
 		case TYPE_HUC3_RTC_RAM:
-			return new HuC3(rom, ram, clock);
+			return new HuC3(rom, ram, ramOffset, ramLength, clock, mapper);
 			
 		case TYPE_HUC1_RAM_BATTERY:
-			return new HuC1(rom, ram);
+			return new HuC1(rom, ram, ramOffset, ramLength, mapper);
 			
 		case 0xEA: // HACK: Sonic 3D Blast 5
-			return new MBC1(rom, ram);
+			return new MBC1(rom, ram, ramOffset, ramLength, mapper);
 			
 		default:
 			throw new RuntimeException("Unsupported memory bank controller (0x" + Integer.toHexString(cartridgeType) + ")");
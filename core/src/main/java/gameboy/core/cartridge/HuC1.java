@@ -26,8 +26,8 @@
 package gameboy.core.cartridge;
 
 public class HuC1 extends MBC1 {
-	public HuC1(byte[] rom, byte[] ram)
+	public HuC1(byte[] rom, byte[] ram, int ramOffset, int ramLength, BankMapper mapper)
 	{
-		super(rom, ram);
+		super(rom, ram, ramOffset, ramLength, mapper);
 	}
 }
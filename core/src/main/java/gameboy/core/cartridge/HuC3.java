@@ -26,11 +26,13 @@
 package gameboy.core.cartridge;
 
 import gameboy.core.driver.ClockDriver;
+import java.nio.ByteBuffer;
 
 public class HuC3 implements MBC {
 	private ClockDriver clock;
 	private byte[] rom;
 	private byte[] ram;
+	private int ramOffset;
 	private int romBank;
 	private int ramBank;
 	private int romSize;
@@ -40,13 +42,15 @@ public class HuC3 implements MBC {
 	private int clockRegister;
 	private int clockShift;
 	private long clockTime;
+	private BankMapper mapper;
 	
-	public HuC3(byte[] rom, byte[] ram, ClockDriver clock)
+	public HuC3(byte[] rom, byte[] ram, int ramOffset, int ramLength, ClockDriver clock, BankMapper mapper)
 	{
 		this.clock = clock;
+		this.mapper = mapper;
 		
 		setROM(rom);
-		setRAM(ram);
+		setRAM(ram, ramOffset, ramLength);
 	}
 	
 	public final void reset()
@@ -61,6 +65,41 @@ public class HuC3 implements MBC {
 		clockShift = 0;
 		
 		clockTime = clock.getTime();
+		
+		updateROMBank();
+		updateRAMBank();
+	}
+	
+	public final int getStateSize()
+	{
+		return 4 * 6 + 8;
+	}
+	
+	public final void saveState(ByteBuffer buffer)
+	{
+		buffer.putInt(romBank);
+		buffer.putInt(ramBank);
+		buffer.putInt(ramFlag);
+		buffer.putInt(ramValue);
+		
+		buffer.putInt(clockRegister);
+		buffer.putInt(clockShift);
+		buffer.putLong(clockTime);
+	}
+	
+	public final void loadState(ByteBuffer buffer)
+	{
+		romBank = buffer.getInt();
+		ramBank = buffer.getInt();
+		ramFlag = buffer.getInt();
+		ramValue = buffer.getInt();
+		
+		clockRegister = buffer.getInt();
+		clockShift = buffer.getInt();
+		clockTime = buffer.getLong();
+		
+		updateROMBank();
+		updateRAMBank();
 	}
 
 	public final int read(int address)
@@ -83,7 +122,7 @@ public class HuC3 implements MBC {
 			}
 			else if (ramFlag == 0x0A || ramFlag == 0x00) {
 				if (ramSize > 0)
-					return ram[ramBank + (address & 0x1FFF)] & 0xFF;
+					return ram[ramOffset + ramBank + (address & 0x1FFF)] & 0xFF;
 			}
 		}
 		return 0xFF;
@@ -94,16 +133,19 @@ public class HuC3 implements MBC {
 		if (address <= 0x1FFF) {
 			// 0000-1FFF
 			ramFlag = data;
+			updateRAMBank();
 		}
 		else if (address <= 0x3FFF) {
 			// 2000-3FFF
 			if ((data & 0x7F) == 0)
 				data = 1;
 			romBank = ((data & 0x7F) << 14) & romSize;
+			updateROMBank();
 		}
 		else if (address <= 0x5FFF) {
 			// 4000-5FFF
 			ramBank = ((data & 0x0F) << 13) & ramSize;
+			updateRAMBank();
 		}
 		else if (address >= 0xA000 && address <= 0xBFFF) {
 			// A000-BFFF
@@ -146,7 +188,7 @@ public class HuC3 implements MBC {
 			}
 			else if (ramFlag == 0x0A) {
 				if (ramSize > 0)
-					ram[ramBank + (address & 0x1FFF)] = (byte) data;
+					ram[ramOffset + ramBank + (address & 0x1FFF)] = (byte) data;
 			}
 		}
 	}
@@ -183,7 +225,21 @@ public class HuC3 implements MBC {
 
 		clockTime = now - elapsed;
 	}
-		
+	
+	private final void updateROMBank()
+	{
+		mapper.mapROM(rom, romBank);
+	}
+	
+	private final void updateRAMBank()
+	{
+		// clock and status registers are always accessed through the controller
+		if (ramFlag == 0x0A && ramSize > 0)
+			mapper.mapRAM(ram, ramOffset + ramBank);
+		else
+			mapper.unmapRAM();
+	}
+	
 	private void setROM(byte[] buffer)
 	{
 		int banks = buffer.length / ROM_BANK_SIZE;
@@ -195,14 +251,15 @@ public class HuC3 implements MBC {
 		romSize = ROM_BANK_SIZE * banks - 1;
 	}
 
-	private void setRAM(byte[] buffer)
+	private void setRAM(byte[] buffer, int offset, int length)
 	{
-		int banks = buffer.length / RAM_BANK_SIZE;
+		int banks = length / RAM_BANK_SIZE;
 
 		if (banks < 0 || banks > 4)
 			throw new RuntimeException("Invalid HuC3 RAM size");
 
 		ram = buffer;
+		ramOffset = offset;
 		ramSize = RAM_BANK_SIZE * banks - 1;
 	}
 }
@@ -21,6 +21,8 @@
  */
 package gameboy.core.cartridge;
 
+import java.nio.ByteBuffer;
+
 public interface MBC {
 	/*
 	 * ROM Bank Size (16KB)
@@ -37,4 +39,13 @@ public interface MBC {
 	public int read(int address);
 	
 	public void write(int address, int data);
+	
+	/*
+	 * Save State (bank registers and clock, the RAM is saved by the cartridge)
+	 */
+	public int getStateSize();
+	
+	public void saveState(ByteBuffer buffer);
+	
+	public void loadState(ByteBuffer buffer);
 }
@@ -25,9 +25,12 @@
  */
 package gameboy.core.cartridge;
 
+import java.nio.ByteBuffer;
+
 public class MBC1 implements MBC {
 	private byte[] rom;
 	private byte[] ram;
+	private int ramOffset;
 	
 	private int romSize;
 	private int ramSize;
@@ -37,11 +40,15 @@ public class MBC1 implements MBC {
 	
 	private int memoryModel;
 	private boolean ramEnable;
+	
+	private BankMapper mapper;
 
-	public MBC1(byte[] rom, byte[] ram)
+	public MBC1(byte[] rom, byte[] ram, int ramOffset, int ramLength, BankMapper mapper)
 	{
+		this.mapper = mapper;
+		
 		setROM(rom);
-		setRAM(ram);
+		setRAM(ram, ramOffset, ramLength);
 	}
 
 	public final void reset()
@@ -52,6 +59,33 @@ public class MBC1 implements MBC {
 		memoryModel = 0;
 
 		ramEnable = false;
+		
+		updateROMBank();
+		updateRAMBank();
+	}
+	
+	public final int getStateSize()
+	{
+		return 4 + 4 + 1 + 1;
+	}
+	
+	public final void saveState(ByteBuffer buffer)
+	{
+		buffer.putInt(romBank);
+		buffer.putInt(ramBank);
+		buffer.put((byte) memoryModel);
+		buffer.put((byte) (ramEnable ? 1 : 0));
+	}
+	
+	public final void loadState(ByteBuffer buffer)
+	{
+		romBank = buffer.getInt();
+		ramBank = buffer.getInt();
+		memoryModel = buffer.get() & 0xFF;
+		ramEnable = buffer.get() != 0;
+		
+		updateROMBank();
+		updateRAMBank();
 	}
 
 	public final int read(int address)
@@ -67,7 +101,7 @@ public class MBC1 implements MBC {
 		else if (address >= 0xA000 && address <= 0xBFFF) {
 			// A000-BFFF
 			if (ramEnable)
-				return ram[ramBank + (address & 0x1FFF)] & 0xFF;
+				return ram[ramOffset + ramBank + (address & 0x1FFF)] & 0xFF;
 		}
 		return 0xFF;
 	}
@@ -76,8 +110,10 @@ public class MBC1 implements MBC {
 	{
 		if (address <= 0x1FFF) {
 			// 0000-1FFF
-			if (ramSize > 0)
+			if (ramSize > 0) {
 				ramEnable = ((data & 0x0A) == 0x0A);
+				updateRAMBank();
+			}
 		}
 		else if (address <= 0x3FFF) {
 			// 2000-3FFF
@@ -89,14 +125,17 @@ public class MBC1 implements MBC {
 			else {
 				romBank = ((data & 0x1F) << 14) & romSize;
 			}
+			updateROMBank();
 		}
 		else if (address <= 0x5FFF) {
 			// 4000-5FFF
 			if (memoryModel == 0) {
 				romBank = ((romBank & 0x07FFFF) + ((data & 0x03) << 19)) & romSize;
+				updateROMBank();
 			}
 			else {
 				ramBank = ((data & 0x03) << 13) & ramSize;
+				updateRAMBank();
 			}
 		}
 		else if (address <= 0x7FFF) {
@@ -106,10 +145,23 @@ public class MBC1 implements MBC {
 		else if (address >= 0xA000 && address <= 0xBFFF) {
 			// A000-BFFF
 			if (ramEnable)
-				ram[ramBank + (address & 0x1FFF)] = (byte) data;
+				ram[ramOffset + ramBank + (address & 0x1FFF)] = (byte) data;
 		}
 	}
 	
+	private final void updateROMBank()
+	{
+		mapper.mapROM(rom, romBank);
+	}
+	
+	private final void updateRAMBank()
+	{
+		if (ramEnable)
+			mapper.mapRAM(ram, ramOffset + ramBank);
+		else
+			mapper.unmapRAM();
+	}
+	
 	private void setROM(byte[] buffer)
 	{
 		int banks = buffer.length / ROM_BANK_SIZE;
@@ -121,14 +173,15 @@ public class MBC1 implements MBC {
 		romSize = ROM_BANK_SIZE * banks - 1;
 	}
 
-	private void setRAM(byte[] buffer)
+	private void setRAM(byte[] buffer, int offset, int length)
 	{
-		int banks = buffer.length / RAM_BANK_SIZE;
+		int banks = length / RAM_BANK_SIZE;
 
 		if (banks < 0 || banks > 4)
 			throw new RuntimeException("Invalid MBC1 RAM size");
 
 		ram = buffer;
+		ramOffset = offset;
 		ramSize = RAM_BANK_SIZE * banks - 1;
 	}	
 }
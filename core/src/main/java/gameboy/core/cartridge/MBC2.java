@@ -25,20 +25,27 @@
  */
 package gameboy.core.cartridge;
 
+import java.nio.ByteBuffer;
+
 public class MBC2 implements MBC {
 	private static final int RAM_BANK_SIZE = 512;
 	
 	private byte[] rom;
 	private byte[] ram;
+	private int ramOffset;
 
 	private int romSize;
 	private int romBank;
 	private boolean ramEnable;
+	
+	private BankMapper mapper;
 
-	public MBC2(byte[] rom, byte[] ram)
+	public MBC2(byte[] rom, byte[] ram, int ramOffset, int ramLength, BankMapper mapper)
 	{
+		this.mapper = mapper;
+		
 		setROM(rom);
-		setRAM(ram);
+		setRAM(ram, ramOffset, ramLength);
 	}
 
 	public final void reset()
@@ -46,6 +53,29 @@ public class MBC2 implements MBC {
 		romBank = ROM_BANK_SIZE;
 
 		ramEnable = false;
+		
+		// 4-bit RAM is always accessed through the controller
+		updateROMBank();
+		mapper.unmapRAM();
+	}
+	
+	public final int getStateSize()
+	{
+		return 4 + 1;
+	}
+	
+	public final void saveState(ByteBuffer buffer)
+	{
+		buffer.putInt(romBank);
+		buffer.put((byte) (ramEnable ? 1 : 0));
+	}
+	
+	public final void loadState(ByteBuffer buffer)
+	{
+		romBank = buffer.getInt();
+		ramEnable = buffer.get() != 0;
+		
+		updateROMBank();
 	}
 
 	public final int read(int address)
@@ -60,7 +90,7 @@ public class MBC2 implements MBC {
 		}
 		else if (address >= 0xA000 && address <= 0xA1FF) {
 			// A000-A1FF
-			return ram[address & 0x01FF] & 0x0F;
+			return ram[ramOffset + (address & 0x01FF)] & 0x0F;
 		}
 		return 0xFF;
 	}
@@ -78,15 +108,21 @@ public class MBC2 implements MBC {
 				if ((data & 0x0F) == 0)
 					data = 1;
 				romBank = ((data & 0x0F) << 14) & romSize;
+				updateROMBank();
 			}
 		}
 		else if (address >= 0xA000 && address <= 0xA1FF) {
 			// A000-A1FF
 			if (ramEnable)
-				ram[address & 0x01FF] = (byte) (data & 0x0F);
+				ram[ramOffset + (address & 0x01FF)] = (byte) (data & 0x0F);
 		}
 	}
 	
+	private final void updateROMBank()
+	{
+		mapper.mapROM(rom, romBank);
+	}
+	
 	private void setROM(byte[] buffer)
 	{
 		int banks = buffer.length / ROM_BANK_SIZE;
@@ -98,11 +134,12 @@ public class MBC2 implements MBC {
 		romSize = ROM_BANK_SIZE * banks - 1;
 	}
 
-	private void setRAM(byte[] buffer)
+	private void setRAM(byte[] buffer, int offset, int length)
 	{
-		if (buffer.length != RAM_BANK_SIZE)
+		if (length != RAM_BANK_SIZE)
 			throw new RuntimeException("Invalid MBC2 RAM size");
 
 		ram = buffer;
+		ramOffset = offset;
 	}	
 }
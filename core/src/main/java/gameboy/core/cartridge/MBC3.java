@@ -26,12 +26,14 @@
 package gameboy.core.cartridge;
 
 import gameboy.core.driver.ClockDriver;
+import java.nio.ByteBuffer;
 
 public class MBC3 implements MBC {
 	private ClockDriver clock;
 	
 	private byte[] rom;
 	private byte[] ram;
+	private int ramOffset;
 	
 	private int romSize;
 	private int ramSize;
@@ -48,12 +50,15 @@ public class MBC3 implements MBC {
 	private int clockSeconds, clockMinutes, clockHours, clockDays, clockControl;
 	private int clockLSeconds, clockLMinutes, clockLHours, clockLDays, clockLControl;
 	
-	public MBC3(byte[] rom, byte[] ram, ClockDriver clock)
+	private BankMapper mapper;
+	
+	public MBC3(byte[] rom, byte[] ram, int ramOffset, int ramLength, ClockDriver clock, BankMapper mapper)
 	{
 		this.clock = clock;
+		this.mapper = mapper;
 		
 		setROM(rom);
-		setRAM(ram);
+		setRAM(ram, ramOffset, ramLength);
 	}
 
 	public final void reset()
@@ -68,7 +73,64 @@ public class MBC3 implements MBC {
 		clockLatch = clockRegister = 0;
 		
 		clockSeconds = clockMinutes = clockHours = clockDays = clockControl = 0;
-		clockLSeconds = clockLMinutes = clockLHours = clockLDays = clockLControl = 0;		
+		clockLSeconds = clockLMinutes = clockLHours = clockLDays = clockLControl = 0;
+		
+		updateROMBank();
+		updateRAMBank();
+	}
+	
+	public final int getStateSize()
+	{
+		return 4 + 4 + 1 + 4 + 4 + 8 + 2 * (3 + 4 + 1);
+	}
+	
+	public final void saveState(ByteBuffer buffer)
+	{
+		buffer.putInt(romBank);
+		buffer.putInt(ramBank);
+		buffer.put((byte) (ramEnable ? 1 : 0));
+		
+		buffer.putInt(clockRegister);
+		buffer.putInt(clockLatch);
+		buffer.putLong(clockTime);
+		
+		buffer.put((byte) clockSeconds);
+		buffer.put((byte) clockMinutes);
+		buffer.put((byte) clockHours);
+		buffer.putInt(clockDays);
+		buffer.put((byte) clockControl);
+		
+		buffer.put((byte) clockLSeconds);
+		buffer.put((byte) clockLMinutes);
+		buffer.put((byte) clockLHours);
+		buffer.putInt(clockLDays);
+		buffer.put((byte) clockLControl);
+	}
+	
+	public final void loadState(ByteBuffer buffer)
+	{
+		romBank = buffer.getInt();
+		ramBank = buffer.getInt();
+		ramEnable = buffer.get() != 0;
+		
+		clockRegister = buffer.getInt();
+		clockLatch = buffer.getInt();
+		clockTime = buffer.getLong();
+		
+		clockSeconds = buffer.get() & 0xFF;
+		clockMinutes = buffer.get() & 0xFF;
+		clockHours = buffer.get() & 0xFF;
+		clockDays = buffer.getInt();
+		clockControl = buffer.get() & 0xFF;
+		
+		clockLSeconds = buffer.get() & 0xFF;
+		clockLMinutes = buffer.get() & 0xFF;
+		clockLHours = buffer.get() & 0xFF;
+		clockLDays = buffer.getInt();
+		clockLControl = buffer.get() & 0xFF;
+		
+		updateROMBank();
+		updateRAMBank();
 	}
 
 	public final int read(int address)
@@ -84,7 +146,7 @@ public class MBC3 implements MBC {
 		else if (address >= 0xA000 && address <= 0xBFFF) {
 			// A000-BFFF
 			if (ramBank >= 0) {
-				return ram[ramBank + (address & 0x1FFF)] & 0xFF;
+				return ram[ramOffset + ramBank + (address & 0x1FFF)] & 0xFF;
 			}
 			else {
 				if (clockRegister == 0x08)
@@ -106,14 +168,17 @@ public class MBC3 implements MBC {
 	{
 		if (address <= 0x1FFF) {
 			// 0000-1FFF
-			if (ramSize > 0)
+			if (ramSize > 0) {
 				ramEnable = ((data & 0x0A) == 0x0A);
+				updateRAMBank();
+			}
 		}
 		else if (address <= 0x3FFF) {
 			// 2000-3FFF
 			if (data == 0)
 				data = 1;
 			romBank = ((data & 0x7F) << 14) & romSize;
+			updateROMBank();
 		}
 		else if (address <= 0x5FFF) {
 			// 4000-5FFF
@@ -124,6 +189,7 @@ public class MBC3 implements MBC {
 				ramBank = -1;
 				clockRegister = data;
 			}
+			updateRAMBank();
 		}
 		else if (address <= 0x7FFF) {
 			// 6000-7FFF
@@ -137,7 +203,7 @@ public class MBC3 implements MBC {
 			// A000-BFFF
 			if (ramEnable) {
 				if (ramBank >= 0) {
-					ram[ramBank + (address & 0x1FFF)] = (byte) data;
+					ram[ramOffset + ramBank + (address & 0x1FFF)] = (byte) data;
 				}
 				else {
 					updateClock();
@@ -216,6 +282,20 @@ public class MBC3 implements MBC {
 		clockTime = now;
 	}
 	
+	private final void updateROMBank()
+	{
+		mapper.mapROM(rom, romBank);
+	}
+	
+	private final void updateRAMBank()
+	{
+		// clock registers are always accessed through the controller
+		if (ramEnable && ramBank >= 0)
+			mapper.mapRAM(ram, ramOffset + ramBank);
+		else
+			mapper.unmapRAM();
+	}
+	
 	private void setROM(byte[] buffer)
 	{
 		int banks = buffer.length / ROM_BANK_SIZE;
@@ -227,14 +307,15 @@ public class MBC3 implements MBC {
 		romSize = ROM_BANK_SIZE * banks - 1;
 	}
 
-	private void setRAM(byte[] buffer)
+	private void setRAM(byte[] buffer, int offset, int length)
 	{
-		int banks = buffer.length / RAM_BANK_SIZE;
+		int banks = length / RAM_BANK_SIZE;
 
 		if (banks < 0 || banks > 4)
 			throw new RuntimeException("Invalid MBC3 RAM size");
 
 		ram = buffer;
+		ramOffset = offset;
 		ramSize = RAM_BANK_SIZE * banks - 1;
 	}
 }
@@ -25,9 +25,12 @@
  */
 package gameboy.core.cartridge;
 
+import java.nio.ByteBuffer;
+
 public class MBC5 implements MBC {
 	private byte[] rom;
 	private byte[] ram;
+	private int ramOffset;
 
 	private int romSize;
 	private int ramSize;
@@ -37,13 +40,16 @@ public class MBC5 implements MBC {
 	
 	private boolean ramEnable;
 	private boolean rumble;
+	
+	private BankMapper mapper;
 
-	public MBC5(byte[] rom, byte[] ram, boolean rumble)
+	public MBC5(byte[] rom, byte[] ram, int ramOffset, int ramLength, boolean rumble, BankMapper mapper)
 	{
 		this.rumble = rumble;
+		this.mapper = mapper;
 		
 		setROM(rom);
-		setRAM(ram);
+		setRAM(ram, ramOffset, ramLength);
 	}
 
 	public final void reset()
@@ -52,6 +58,33 @@ public class MBC5 implements MBC {
 		ramBank = 0;
 
 		ramEnable = false;
+		
+		updateROMBank();
+		updateRAMBank();
+	}
+	
+	public final int getStateSize()
+	{
+		return 4 + 4 + 1 + 1;
+	}
+	
+	public final void saveState(ByteBuffer buffer)
+	{
+		buffer.putInt(romBank);
+		buffer.putInt(ramBank);
+		buffer.put((byte) (ramEnable ? 1 : 0));
+		buffer.put((byte) (rumble ? 1 : 0));
+	}
+	
+	public final void loadState(ByteBuffer buffer)
+	{
+		romBank = buffer.getInt();
+		ramBank = buffer.getInt();
+		ramEnable = buffer.get() != 0;
+		rumble = buffer.get() != 0;
+		
+		updateROMBank();
+		updateRAMBank();
 	}
 
 	public final int read(int address)
@@ -66,7 +99,7 @@ public class MBC5 implements MBC {
 		}
 		else if (address >= 0xA000 && address <= 0xBFFF) {
 			// A000-BFFF
-			return ram[ramBank + (address & 0x1FFF)] & 0xFF;
+			return ram[ramOffset + ramBank + (address & 0x1FFF)] & 0xFF;
 		}
 		return 0xFF;
 	}
@@ -75,16 +108,20 @@ public class MBC5 implements MBC {
 	{
 		if (address <= 0x1FFF) {
 			// 0000-1FFF
-			if (ramSize > 0)
+			if (ramSize > 0) {
 				ramEnable = ((data & 0x0A) == 0x0A);
+				updateRAMBank();
+			}
 		}
 		else if (address <= 0x2FFF) {
 			// 2000-2FFF
 			romBank = ((romBank & (0x01 << 22)) + ((data & 0xFF) << 14)) & romSize;
+			updateROMBank();
 		}
 		else if (address <= 0x3FFF) {
 			// 3000-3FFF
 			romBank = ((romBank & (0xFF << 14)) + ((data & 0x01) << 22)) & romSize;
+			updateROMBank();
 		}
 		else if (address <= 0x4FFF) {
 			// 4000-4FFF
@@ -92,14 +129,28 @@ public class MBC5 implements MBC {
 				ramBank = ((data & 0x07) << 13) & ramSize;
 			else
 				ramBank = ((data & 0x0F) << 13) & ramSize;
+			updateRAMBank();
 		}
 		else if (address >= 0xA000 && address <= 0xBFFF) {
 			// A000-BFFF
 			if (ramEnable)
-				ram[ramBank + (address & 0x1FFF)] = (byte) data;
+				ram[ramOffset + ramBank + (address & 0x1FFF)] = (byte) data;
 		}
 	}
 	
+	private final void updateROMBank()
+	{
+		mapper.mapROM(rom, romBank);
+	}
+	
+	private final void updateRAMBank()
+	{
+		if (ramEnable)
+			mapper.mapRAM(ram, ramOffset + ramBank);
+		else
+			mapper.unmapRAM();
+	}
+	
 	private void setROM(byte[] buffer)
 	{
 		int banks = buffer.length / ROM_BANK_SIZE;
@@ -111,14 +162,15 @@ public class MBC5 implements MBC {
 		romSize = ROM_BANK_SIZE * banks - 1;
 	}
 
-	private void setRAM(byte[] buffer)
+	private void setRAM(byte[] buffer, int offset, int length)
 	{
-		int banks = buffer.length / RAM_BANK_SIZE;
+		int banks = length / RAM_BANK_SIZE;
 
 		if (banks < 0 || banks > 16)
 			throw new RuntimeException("Invalid MBC5 RAM size");
 
 		ram = buffer;
+		ramOffset = offset;
 		ramSize = RAM_BANK_SIZE * banks - 1;
 	}
 }
@@ -0,0 +1,320 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Lockstep Checker
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core.debugger;
+
+import gameboy.core.CPU;
+import gameboy.core.GameBoy;
+import java.nio.ByteBuffer;
+
+public class Lockstep {
+	private static final String hexdigits[] = {
+		"0", "1", "2", "3", "4", "5", "6", "7",
+		"8", "9", "A", "B", "C", "D", "E", "F"
+	};
+	
+	/*
+	 * Halted Slice (ticks both machines sleep at once while halted)
+	 */
+	private static final int HALTED_SLICE = 64;
+	
+	/*
+	 * Checkpoint Interval (steps the reference replays to find a divergence)
+	 */
+	private static final int CHECKPOINT_STEPS = 4096;
+	
+	/*
+	 * Machines (both get the same emulate calls, so interrupts dispatch alike)
+	 */
+	private GameBoy reference;
+	private GameBoy subject;
+	private WriteTrace referenceTrace;
+	private WriteTrace subjectTrace;
+	private Disassembler disassembler;
+	
+	/*
+	 * Step Slice (1 compares after every instruction, longer slices let
+	 * the block engines run whole blocks and compare their write streams)
+	 */
+	private int slice = 1;
+	
+	/*
+	 * Reference Checkpoint
+	 */
+	private ByteBuffer checkpoint;
+	private int checkpointSteps;
+	
+	/*
+	 * Replayed Instructions of the diverging step (address and write count after each)
+	 */
+	private int[] addresses = new int[64];
+	private int[] marks = new int[64];
+	private int count;
+	
+	private long steps;
+	private String report;
+	
+	public Lockstep(GameBoy reference, GameBoy subject)
+	{
+		this.reference = reference;
+		this.subject = subject;
+		
+		checkpoint = ByteBuffer.allocate(reference.getStateSize());
+		
+		// both machines start from the reference state
+		reference.saveState(checkpoint);
+		checkpoint.flip();
+		subject.loadState(checkpoint);
+		
+		referenceTrace = new WriteTrace(reference.getCPU().getMemory());
+		subjectTrace = new WriteTrace(subject.getCPU().getMemory());
+		
+		reference.getCPU().setMemory(referenceTrace);
+		subject.getCPU().setMemory(subjectTrace);
+		
+		checkpointSteps = CHECKPOINT_STEPS;
+		
+		disassembler = new Disassembler(reference);
+	}
+	
+	public final int getSlice()
+	{
+		return slice;
+	}
+	
+	public final void setSlice(int slice)
+	{
+		this.slice = slice;
+		
+		// the replay must repeat the same slices
+		checkpointSteps = CHECKPOINT_STEPS;
+	}
+	
+	public final long getSteps()
+	{
+		return steps;
+	}
+	
+	public final String getReport()
+	{
+		return report;
+	}
+	
+	public final void detach()
+	{
+		reference.getCPU().setMemory(referenceTrace.getMemory());
+		subject.getCPU().setMemory(subjectTrace.getMemory());
+	}
+	
+	/*
+	 * Lockstep (false at the first divergence, see getReport)
+	 */
+	public final boolean run(long limit)
+	{
+		while (steps < limit) {
+			if (checkpointSteps == CHECKPOINT_STEPS) {
+				checkpoint.clear();
+				reference.saveState(checkpoint);
+				checkpointSteps = 0;
+			}
+			
+			referenceTrace.clear();
+			subjectTrace.clear();
+			
+			int ticks = getTicks();
+			
+			reference.emulate(ticks);
+			subject.emulate(ticks);
+			
+			checkpointSteps++;
+			steps++;
+			
+			String reason = compare();
+			
+			if (reason != null) {
+				diverge(reason);
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	private final int getTicks()
+	{
+		// the reference decides, a halted subject alone shows up as a divergence
+		return reference.getCPU().isHalted() ? HALTED_SLICE : slice;
+	}
+	
+	private final String compare()
+	{
+		CPU first = reference.getCPU();
+		CPU second = subject.getCPU();
+		
+		int references = referenceTrace.getCount();
+		int subjects = subjectTrace.getCount();
+		
+		for (int index = 0; index < Math.min(references, subjects); index++) {
+			if (referenceTrace.getAddress(index) != subjectTrace.getAddress(index) || referenceTrace.getData(index) != subjectTrace.getData(index))
+				return "Write #" + index + " differs: reference " + write(referenceTrace, index) + " subject " + write(subjectTrace, index);
+		}
+		
+		if (references != subjects)
+			return "Write count differs: reference " + references + " subject " + subjects;
+		
+		if (first.getAF() != second.getAF() || first.getBC() != second.getBC() || first.getDE() != second.getDE() ||
+			first.getHL() != second.getHL() || first.getSP() != second.getSP() || first.getPC() != second.getPC() ||
+			first.getIF() != second.getIF() || first.isHalted() != second.isHalted())
+			return "Registers differ";
+		
+		if (getTime(reference) != getTime(subject))
+			return "Timing differs: reference " + getTime(reference) + " subject " + getTime(subject);
+		
+		return null;
+	}
+	
+	private final void diverge(String reason)
+	{
+		StringBuffer buffer = new StringBuffer();
+		
+		buffer.append("Divergence at step " + steps + "\n");
+		buffer.append(reason + "\n");
+		buffer.append("Reference " + registers(reference.getCPU()) + "\n");
+		buffer.append("Subject   " + registers(subject.getCPU()) + "\n");
+		
+		replay();
+		
+		// the first write that differs, or the last instruction of the step
+		int write = Math.min(referenceTrace.getCount(), subjectTrace.getCount());
+		
+		for (int index = 0; index < write; index++) {
+			if (referenceTrace.getAddress(index) != subjectTrace.getAddress(index) || referenceTrace.getData(index) != subjectTrace.getData(index))
+				write = index;
+		}
+		
+		int instruction = count - 1;
+		
+		if (write < referenceTrace.getCount() || write < subjectTrace.getCount()) {
+			for (int index = count - 1; index >= 0; index--) {
+				if (marks[index] > write)
+					instruction = index;
+			}
+		}
+		
+		for (int index = 0; index < count; index++)
+			buffer.append((index == instruction ? "> " : "  ") + disassemble(addresses[index]) + "\n");
+		
+		// nothing ran in the step, the state differed before it
+		if (count == 0)
+			buffer.append("> " + disassemble(reference.getCPU().getPC()) + "\n");
+		
+		report = buffer.toString();
+	}
+	
+	private final void replay()
+	{
+		CPU cpu = reference.getCPU();
+		
+		// back to the checkpoint and up to the diverging step with the same slices
+		checkpoint.flip();
+		reference.loadState(checkpoint);
+		
+		for (int index = 1; index < checkpointSteps; index++)
+			reference.emulate(getTicks());
+		
+		// the diverging step again, an instruction at a time
+		long end = reference.getTime() + getTicks();
+		
+		referenceTrace.clear();
+		count = 0;
+		
+		while (reference.getTime() < end) {
+			// interrupts dispatch first, the program counter is then the instruction run
+			cpu.interrupt();
+			
+			long time = getTime(reference);
+			int address = cpu.getPC();
+			
+			reference.emulate(1);
+			
+			if (getTime(reference) != time)
+				addInstruction(address);
+		}
+		
+		checkpointSteps = CHECKPOINT_STEPS;
+	}
+	
+	private final void addInstruction(int address)
+	{
+		if (count == addresses.length) {
+			int[] newAddresses = new int[count * 2];
+			int[] newMarks = new int[count * 2];
+			
+			System.arraycopy(addresses, 0, newAddresses, 0, count);
+			System.arraycopy(marks, 0, newMarks, 0, count);
+			
+			addresses = newAddresses;
+			marks = newMarks;
+		}
+		
+		addresses[count] = address;
+		marks[count] = referenceTrace.getCount();
+		count++;
+	}
+	
+	private final String disassemble(int address)
+	{
+		return "PC=" + hexWord(address) + " OP=" + hexByte(reference.read(address)) + " " + disassembler.disassemble(address);
+	}
+	
+	private static final long getTime(GameBoy gameboy)
+	{
+		// the CPU runs past the scheduler time and carries its overshoot as debt
+		return gameboy.getTime() - gameboy.getCPU().getCycles();
+	}
+	
+	private static final String write(WriteTrace trace, int index)
+	{
+		return hexWord(trace.getAddress(index)) + "=" + hexByte(trace.getData(index));
+	}
+	
+	private static final String registers(CPU cpu)
+	{
+		return "AF=" + hexWord(cpu.getAF()) +
+			" BC=" + hexWord(cpu.getBC()) +
+			" DE=" + hexWord(cpu.getDE()) +
+			" HL=" + hexWord(cpu.getHL()) +
+			" SP=" + hexWord(cpu.getSP()) +
+			" PC=" + hexWord(cpu.getPC()) +
+			" IF=" + hexByte(cpu.getIF()) +
+			(cpu.isHalted() ? " HALT" : "");
+	}
+	
+	private static final String hexWord(int value)
+	{
+		return hexdigits[(value >> 12) & 0x0F] + hexdigits[(value >> 8) & 0x0F] + hexdigits[(value >> 4) & 0x0F] + hexdigits[value & 0x0F]; 
+	}
+	
+	private static final String hexByte(int value)
+	{
+		return hexdigits[(value >> 4) & 0x0F] + hexdigits[value & 0x0F]; 
+	}
+}
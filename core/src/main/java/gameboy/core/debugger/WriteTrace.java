@@ -0,0 +1,93 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Write Trace
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core.debugger;
+
+import gameboy.core.Memory;
+
+public class WriteTrace implements Memory {
+	/*
+	 * Traced Bus
+	 */
+	private Memory memory;
+	
+	/*
+	 * Writes since the last clear (address and data of each)
+	 */
+	private int[] addresses = new int[256];
+	private int[] values = new int[256];
+	private int count;
+	
+	public WriteTrace(Memory memory)
+	{
+		this.memory = memory;
+	}
+	
+	public final Memory getMemory()
+	{
+		return memory;
+	}
+	
+	public final int getCount()
+	{
+		return count;
+	}
+	
+	public final int getAddress(int index)
+	{
+		return addresses[index];
+	}
+	
+	public final int getData(int index)
+	{
+		return values[index];
+	}
+	
+	public final void clear()
+	{
+		count = 0;
+	}
+	
+	public final void write(int address, int data)
+	{
+		if (count == addresses.length) {
+			int[] newAddresses = new int[count * 2];
+			int[] newValues = new int[count * 2];
+			
+			System.arraycopy(addresses, 0, newAddresses, 0, count);
+			System.arraycopy(values, 0, newValues, 0, count);
+			
+			addresses = newAddresses;
+			values = newValues;
+		}
+		
+		addresses[count] = address;
+		values[count] = data & 0xFF;
+		count++;
+		
+		memory.write(address, data);
+	}
+	
+	public final int read(int address)
+	{
+		return memory.read(address);
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Batch Job
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.platform.headless;
+
+import java.io.File;
+
+import gameboy.core.CPU;
+
+public class BatchJob {
+	/*
+	 * Cartridge and Input (a movie recorded on the cartridge, or none for an idle joypad)
+	 */
+	private File cartridge;
+	private File movie;
+	
+	/*
+	 * Run Length
+	 */
+	private int frames;
+	
+	private int engine = CPU.ENGINE_INTERPRETER;
+	private boolean sound;
+	
+	public BatchJob(File cartridge, File movie, int frames)
+	{
+		this.cartridge = cartridge;
+		this.movie = movie;
+		this.frames = frames;
+	}
+	
+	public final File getCartridge()
+	{
+		return cartridge;
+	}
+	
+	public final File getMovie()
+	{
+		return movie;
+	}
+	
+	public final int getFrames()
+	{
+		return frames;
+	}
+	
+	public final int getEngine()
+	{
+		return engine;
+	}
+	
+	public final void setEngine(int engine)
+	{
+		this.engine = engine;
+	}
+	
+	public final boolean isSound()
+	{
+		return sound;
+	}
+	
+	public final void setSound(boolean sound)
+	{
+		this.sound = sound;
+	}
+	
+	public final String toString()
+	{
+		return cartridge.getName() + (movie != null ? " " + movie.getName() : "") + " " + frames + " frames";
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Batch Result
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.platform.headless;
+
+public class BatchResult {
+	private BatchJob job;
+	
+	/*
+	 * Outcome (written once by the thread that ran the job)
+	 */
+	private long[] frameHashes;
+	private byte[] ram;
+	private long stateHash;
+	private long cycles;
+	private long elapsed;
+	private RuntimeException error;
+	
+	BatchResult(BatchJob job, long[] frameHashes, byte[] ram, long stateHash, long cycles, long elapsed)
+	{
+		this.job = job;
+		this.frameHashes = frameHashes;
+		this.ram = ram;
+		this.stateHash = stateHash;
+		this.cycles = cycles;
+		this.elapsed = elapsed;
+	}
+	
+	BatchResult(BatchJob job, RuntimeException error)
+	{
+		this.job = job;
+		this.error = error;
+	}
+	
+	public final BatchJob getJob()
+	{
+		return job;
+	}
+	
+	public final boolean isFailed()
+	{
+		return error != null;
+	}
+	
+	public final RuntimeException getError()
+	{
+		return error;
+	}
+	
+	/*
+	 * Frame Hashes (one per frame, over the frame buffer at V-Blank)
+	 */
+	public final long[] getFrameHashes()
+	{
+		return frameHashes;
+	}
+	
+	/*
+	 * RAM Snapshot (the state arena at the end: video, work, object, high and cartridge RAM)
+	 */
+	public final byte[] getRAM()
+	{
+		return ram;
+	}
+	
+	public final long getStateHash()
+	{
+		return stateHash;
+	}
+	
+	public final long getCycles()
+	{
+		return cycles;
+	}
+	
+	public final long getElapsed()
+	{
+		return elapsed;
+	}
+	
+	public final String toString()
+	{
+		if (error != null)
+			return job + ": " + error.getMessage();
+		
+		return job + ": " + cycles + " cycles in " + elapsed + " ms, state " + Long.toHexString(stateHash);
+	}
+}
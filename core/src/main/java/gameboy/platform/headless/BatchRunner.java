@@ -0,0 +1,187 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Parallel Batch Runner
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.platform.headless;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import gameboy.core.GameBoy;
+import gameboy.core.Movie;
+
+/*
+ * Runs independent machines on a work stealing pool, one thread per core.
+ *
+ * gameboy.core holds no static mutable state: its static tables (ALU,
+ * BlockCache, Timer and Video) are filled by class initializers and only
+ * read afterwards, and every CPU recompiles into its own class loader.
+ * A machine and its drivers are only touched by the thread running its
+ * job, so jobs share nothing and need no locks.
+ */
+public class BatchRunner {
+	/*
+	 * Frame Hash (FNV-1a over the pixels)
+	 */
+	private static final long FNV_BASIS = 0xCBF29CE484222325L;
+	private static final long FNV_PRIME = 0x100000001B3L;
+	
+	private ForkJoinPool pool;
+	
+	public BatchRunner()
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+	
+	public BatchRunner(int threads)
+	{
+		pool = new ForkJoinPool(threads);
+	}
+	
+	public final int getThreads()
+	{
+		return pool.getParallelism();
+	}
+	
+	public final BatchResult[] run(BatchJob[] jobs)
+	{
+		BatchResult[] results = new BatchResult[jobs.length];
+		
+		// each job writes its own slot, the join publishes them all
+		if (jobs.length > 0)
+			pool.invoke(new Task(jobs, results, 0, jobs.length));
+		
+		return results;
+	}
+	
+	public final void shutdown()
+	{
+		pool.shutdown();
+	}
+	
+	/*
+	 * Job Ranges (split in halves that idle threads steal)
+	 */
+	private static final class Task extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private BatchJob[] jobs;
+		private BatchResult[] results;
+		private int from;
+		private int to;
+		
+		Task(BatchJob[] jobs, BatchResult[] results, int from, int to)
+		{
+			this.jobs = jobs;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+		
+		protected void compute()
+		{
+			if (to - from == 1) {
+				results[from] = execute(jobs[from]);
+			}
+			else {
+				int middle = (from + to) >>> 1;
+				
+				invokeAll(new Task(jobs, results, from, middle), new Task(jobs, results, middle, to));
+			}
+		}
+	}
+	
+	/*
+	 * Job Execution (a machine with its own drivers)
+	 */
+	private static final BatchResult execute(BatchJob job)
+	{
+		try {
+			long start = System.currentTimeMillis();
+			
+			Video video = new Video(160, 144);
+			Sound sound = new Sound(44100, 2, 8);
+			Joypad joypad = new Joypad();
+			Store store = new Store(job.getCartridge().getAbsoluteFile().getParentFile());
+			Clock clock = new Clock(0);
+			
+			sound.setEnabled(job.isSound());
+			
+			GameBoy gameboy = new GameBoy(video, sound, joypad, store, clock);
+			
+			gameboy.getCPU().setEngine(job.getEngine());
+			gameboy.load(job.getCartridge().getName());
+			gameboy.reset();
+			
+			if (job.getMovie() != null)
+				gameboy.playMovie(readMovie(job));
+			
+			long[] frameHashes = new long[job.getFrames()];
+			long cycles = 0;
+			
+			for (int frame = 0; frame < frameHashes.length; frame++) {
+				cycles += gameboy.runFrame();
+				frameHashes[frame] = hashFrame(gameboy.getFrameBuffer());
+			}
+			
+			byte[] ram = gameboy.getArena().clone();
+			
+			return new BatchResult(job, frameHashes, ram, gameboy.getStateHash(), cycles, System.currentTimeMillis() - start);
+		}
+		catch (RuntimeException exception) {
+			return new BatchResult(job, exception);
+		}
+	}
+	
+	private static final Movie readMovie(BatchJob job)
+	{
+		try {
+			FileInputStream input = new FileInputStream(job.getMovie());
+			
+			try {
+				FileChannel channel = input.getChannel();
+				Movie movie = new Movie();
+				
+				movie.read(channel);
+				
+				return movie;
+			}
+			finally {
+				input.close();
+			}
+		}
+		catch (IOException exception) {
+			throw new RuntimeException("Could not load movie: " + job.getMovie());
+		}
+	}
+	
+	private static final long hashFrame(int[] pixels)
+	{
+		long hash = FNV_BASIS;
+		
+		for (int offset = 0; offset < pixels.length; offset++)
+			hash = (hash ^ pixels[offset]) * FNV_PRIME;
+		
+		return hash;
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Headless Joypad Driver
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.platform.headless;
+
+import gameboy.core.driver.JoypadDriver;
+
+public class Joypad implements JoypadDriver {
+	/*
+	 * Pressed Buttons and Directions (BUTTON_* masks)
+	 */
+	private int buttons;
+	private int directions;
+	private boolean raised;
+
+	public final boolean isRaised()
+	{
+		boolean result = raised;
+		raised = false;
+		return result;
+	}
+
+	public final int getButtons()
+	{
+		return buttons ^ 0x0F;
+	}
+
+	public final int getDirections()
+	{
+		return directions ^ 0x0F;
+	}
+
+	public final void setButtons(int buttons)
+	{
+		buttons &= 0x0F;
+		
+		if (this.buttons != buttons)
+			raised = true;
+		
+		this.buttons = buttons;
+	}
+
+	public final void setDirections(int directions)
+	{
+		directions &= 0x0F;
+		
+		if (this.directions != directions)
+			raised = true;
+		
+		this.directions = directions;
+	}
+}
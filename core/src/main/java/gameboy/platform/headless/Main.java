@@ -0,0 +1,78 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Headless Runner
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.platform.headless;
+
+import java.io.File;
+
+import gameboy.core.CPU;
+import gameboy.core.GameBoy;
+
+public class Main {
+	private static final int DEFAULT_FRAMES = 3600;
+	
+	public static void main(String[] args)
+	{
+		if (args.length < 1) {
+			System.err.println("Usage: Main cartridge [frames] [interpreter|block|recompiler] [sound]");
+			System.exit(1);
+		}
+		
+		File file = new File(args[0]).getAbsoluteFile();
+		int frames = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_FRAMES;
+		
+		Video video = new Video(160, 144);
+		Sound sound = new Sound(44100, 2, 8);
+		Joypad joypad = new Joypad();
+		Store store = new Store(file.getParentFile());
+		Clock clock = new Clock(0);
+		
+		GameBoy gameboy = new GameBoy(video, sound, joypad, store, clock);
+		
+		for (int index = 2; index < args.length; index++) {
+			if (args[index].equals("interpreter"))
+				gameboy.getCPU().setEngine(CPU.ENGINE_INTERPRETER);
+			else if (args[index].equals("block"))
+				gameboy.getCPU().setEngine(CPU.ENGINE_BLOCK_CACHE);
+			else if (args[index].equals("recompiler"))
+				gameboy.getCPU().setEngine(CPU.ENGINE_RECOMPILER);
+			else if (args[index].equals("sound"))
+				sound.setEnabled(true);
+			else
+				throw new RuntimeException("Unknown option: " + args[index]);
+		}
+		
+		gameboy.load(file.getName());
+		gameboy.reset();
+		gameboy.start();
+		
+		long start = System.currentTimeMillis();
+		
+		long cycles = gameboy.runFrames(frames);
+		
+		long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+		
+		gameboy.stop();
+		
+		System.out.println(gameboy.getCartridge().getTitle() + ": " + frames + " frames (" + cycles + " cycles) in " + elapsed + " ms, " +
+			(frames * 1000L / elapsed) + " fps");
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Headless Sound Driver
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.platform.headless;
+
+import gameboy.core.driver.SoundDriver;
+
+public class Sound implements SoundDriver {
+	private int sampleRate;
+	private int channels;
+	private int bitsPerSample;
+	
+	/*
+	 * Mixing (a disabled driver lets the core skip the mixer)
+	 */
+	private boolean enabled;
+	private long length;
+
+	public Sound(int sampleRate, int channels, int bitsPerSample)
+	{
+		this.sampleRate = sampleRate;
+		this.channels = channels;
+		this.bitsPerSample = bitsPerSample;
+	}
+	
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+	
+	public final void setEnabled(boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+	
+	public int getSampleRate()
+	{
+		return sampleRate;
+	}
+
+	public int getChannels()
+	{
+		return channels;
+	}
+	
+	public int getBitsPerSample()
+	{
+		return bitsPerSample;
+	}
+	
+	public final long getLength()
+	{
+		return length;
+	}
+	
+	public void start()
+	{
+	}
+	
+	public void stop()
+	{
+	}
+	
+	public void write(byte[] buffer, int length)
+	{
+		this.length += length;
+	}
+}
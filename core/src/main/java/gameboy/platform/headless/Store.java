@@ -0,0 +1,138 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * File System Cartridge Store
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.platform.headless;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import gameboy.core.driver.StoreDriver;
+
+public class Store implements StoreDriver {
+	/*
+	 * Cartridges and their batteries (the cartridge name plus ".sav") live in a directory
+	 */
+	private File directory;
+	
+	public Store(File directory)
+	{
+		this.directory = directory;
+	}
+	
+	public boolean hasCartridge(String cartridgeName)
+	{
+		return getCartridgeFile(cartridgeName).isFile();
+	}
+
+	public int getCartridgeSize(String cartridgeName)
+	{
+		File file = getCartridgeFile(cartridgeName);
+		
+		if (!file.isFile())
+			throw new RuntimeException("Could not get cartridge size: " + cartridgeName);
+		
+		return (int) file.length();
+	}
+
+	public void readCartridge(String cartridgeName, byte[] buffer)
+	{
+		try {
+			readFile(getCartridgeFile(cartridgeName), buffer);
+		}
+		catch (IOException exception) {
+			throw new RuntimeException("Could not load cartridge: " + cartridgeName);
+		}
+	}
+
+	public boolean hasBattery(String cartridgeName)
+	{
+		return getBatteryFile(cartridgeName).isFile();
+	}
+
+	public int getBatterySize(String cartridgeName)
+	{
+		return (int) getBatteryFile(cartridgeName).length();
+	}
+
+	public void readBattery(String cartridgeName, byte[] buffer)
+	{
+		try {
+			readFile(getBatteryFile(cartridgeName), buffer);
+		}
+		catch (IOException exception) {
+			throw new RuntimeException("Could not load battery: " + cartridgeName);
+		}
+	}
+
+	public void writeBattery(String cartridgeName, byte[] buffer)
+	{
+		try {
+			OutputStream output = new FileOutputStream(getBatteryFile(cartridgeName));
+			
+			try {
+				output.write(buffer);
+			}
+			finally {
+				output.close();
+			}
+		}
+		catch (IOException exception) {
+			throw new RuntimeException("Could not save battery: " + cartridgeName);
+		}
+	}
+
+	public void removeBattery(String cartridgeName)
+	{
+		getBatteryFile(cartridgeName).delete();
+	}
+	
+	private final void readFile(File file, byte[] buffer) throws IOException
+	{
+		InputStream input = new FileInputStream(file);
+		
+		try {
+			int length, offset = 0;
+			
+			while (offset < buffer.length && (length = input.read(buffer, offset, buffer.length - offset)) > 0)
+				offset += length;
+			
+			if (offset != buffer.length)
+				throw new IOException("Unexpected end of file");
+		}
+		finally {
+			input.close();
+		}
+	}
+	
+	private final File getCartridgeFile(String cartridgeName)
+	{
+		return new File(directory, cartridgeName);
+	}
+	
+	private final File getBatteryFile(String cartridgeName)
+	{
+		return new File(directory, cartridgeName + ".sav");
+	}
+}
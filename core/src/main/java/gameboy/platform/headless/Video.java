@@ -0,0 +1,65 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Headless Video Driver
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.platform.headless;
+
+import gameboy.core.driver.VideoDriver;
+
+public class Video implements VideoDriver {
+	private int[] pixels;
+	private int width;
+	private int height;
+	private int frameCount;
+
+	public Video(int width, int height)
+	{
+		this.width = width;
+		this.height = height;
+
+		pixels = new int[width * height];
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	public int[] getPixels()
+	{
+		return pixels;
+	}
+
+	public final int getFrameCount()
+	{
+		return frameCount;
+	}
+
+	public void display()
+	{
+		// the frame stays in the pixel buffer for whoever wants to look at it
+		frameCount++;
+	}
+}
@@ -0,0 +1,249 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * ALU Table Tests
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ALUTest {
+	/*
+	 * Operands (B, C, D, E, H, L, (HL), A), (HL) points into work RAM
+	 */
+	private static final String[] OPERANDS = {
+		"B", "C", "D", "E", "H", "L", "(HL)", "A"
+	};
+	
+	private static final int HL_OPERAND = 6;
+	private static final int A_OPERAND = 7;
+	private static final int HL_ADDR = 0xD000;
+	private static final int CODE_ADDR = 0xC000;
+	
+	/*
+	 * Flags on entry (only the carry is read, the others must not leak through)
+	 */
+	private static final int[] FLAGS = {
+		0x00, CPU.C_FLAG, CPU.Z_FLAG | CPU.N_FLAG | CPU.H_FLAG, 0xF0
+	};
+	
+	/*
+	 * Two Operand Instructions (ADD A,B, ADC A,B, SUB B, SBC A,B, CP B)
+	 */
+	private static final int[] TWO_OPERAND = {
+		0x80, 0x88, 0x90, 0x98, 0xB8
+	};
+	
+	private static final String[] TWO_OPERAND_NAMES = {
+		"ADD A,B", "ADC A,B", "SUB B", "SBC A,B", "CP B"
+	};
+	
+	/*
+	 * Rotate and Shift Instructions (CB prefixed, operand in the low three bits)
+	 */
+	private static final int[] ROTATE_SHIFT = {
+		0x00, 0x08, 0x10, 0x18, 0x20, 0x28, 0x30, 0x38
+	};
+	
+	private static final String[] ROTATE_SHIFT_NAMES = {
+		"RLC ", "RRC ", "RL ", "RR ", "SLA ", "SRA ", "SWAP ", "SRL "
+	};
+	
+	/*
+	 * Increment and Decrement Instructions (operand in bits 5-3)
+	 */
+	private static final int[] INC_DEC = {
+		0x04, 0x05
+	};
+	
+	private static final String[] INC_DEC_NAMES = {
+		"INC ", "DEC "
+	};
+	
+	@Test
+	public void twoOperandTablesMatchHelpers()
+	{
+		GameBoy gameboy = new TestMachine(new int[0]).getGameBoy();
+		CPU cpu = gameboy.getCPU();
+		
+		for (int instruction = 0; instruction < TWO_OPERAND.length; instruction++) {
+			gameboy.write(CODE_ADDR, TWO_OPERAND[instruction]);
+			
+			for (int a = 0x00; a <= 0xFF; a++) {
+				for (int data = 0x00; data <= 0xFF; data++) {
+					for (int flags = 0; flags < FLAGS.length; flags++) {
+						cpu.setB(data);
+						
+						int expected = execute(gameboy, false, a, FLAGS[flags]);
+						
+						cpu.setB(data);
+						
+						int actual = execute(gameboy, true, a, FLAGS[flags]);
+						
+						assertEquals(TWO_OPERAND_NAMES[instruction] + " A=" + Integer.toHexString(a) + " B=" + Integer.toHexString(data) +
+							" F=" + Integer.toHexString(FLAGS[flags]), expected, actual);
+					}
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void rotateShiftTablesMatchHelpers()
+	{
+		GameBoy gameboy = new TestMachine(new int[0]).getGameBoy();
+		
+		gameboy.write(CODE_ADDR, 0xCB);
+		
+		for (int instruction = 0; instruction < ROTATE_SHIFT.length; instruction++) {
+			for (int operand = 0; operand < OPERANDS.length; operand++) {
+				gameboy.write(CODE_ADDR + 1, ROTATE_SHIFT[instruction] + operand);
+				
+				compare(gameboy, operand, ROTATE_SHIFT_NAMES[instruction] + OPERANDS[operand]);
+			}
+		}
+	}
+	
+	@Test
+	public void incDecTablesMatchHelpers()
+	{
+		GameBoy gameboy = new TestMachine(new int[0]).getGameBoy();
+		
+		for (int instruction = 0; instruction < INC_DEC.length; instruction++) {
+			for (int operand = 0; operand < OPERANDS.length; operand++) {
+				gameboy.write(CODE_ADDR, INC_DEC[instruction] + (operand << 3));
+				
+				compare(gameboy, operand, INC_DEC_NAMES[instruction] + OPERANDS[operand]);
+			}
+		}
+	}
+	
+	@Test
+	public void daaTableMatchesHelper()
+	{
+		GameBoy gameboy = new TestMachine(new int[0]).getGameBoy();
+		
+		gameboy.write(CODE_ADDR, 0x27);
+		
+		// DAA reads N, H and C, every combination is run
+		for (int a = 0x00; a <= 0xFF; a++) {
+			for (int f = 0x00; f <= 0xF0; f += 0x10) {
+				int expected = execute(gameboy, false, a, f);
+				int actual = execute(gameboy, true, a, f);
+				
+				assertEquals("DAA A=" + Integer.toHexString(a) + " F=" + Integer.toHexString(f), expected, actual);
+			}
+		}
+	}
+	
+	private final void compare(GameBoy gameboy, int operand, String name)
+	{
+		for (int data = 0x00; data <= 0xFF; data++) {
+			for (int flags = 0; flags < FLAGS.length; flags++) {
+				// A keeps a value of its own unless it is the operand
+				int a = operand == A_OPERAND ? data : data ^ 0x5A;
+				
+				setOperand(gameboy, operand, data);
+				
+				int expected = (execute(gameboy, false, a, FLAGS[flags]) << 8) + getOperand(gameboy, operand);
+				
+				setOperand(gameboy, operand, data);
+				
+				int actual = (execute(gameboy, true, a, FLAGS[flags]) << 8) + getOperand(gameboy, operand);
+				
+				assertEquals(name + " data=" + Integer.toHexString(data) + " F=" + Integer.toHexString(FLAGS[flags]), expected, actual);
+			}
+		}
+	}
+	
+	private final void setOperand(GameBoy gameboy, int operand, int data)
+	{
+		CPU cpu = gameboy.getCPU();
+		
+		// HL is reset for every run, an H or L operand overwrites half of it
+		cpu.setH(HL_ADDR >> 8);
+		cpu.setL(HL_ADDR & 0xFF);
+		
+		switch (operand) {
+		case 0:
+			cpu.setB(data);
+			break;
+		case 1:
+			cpu.setC(data);
+			break;
+		case 2:
+			cpu.setD(data);
+			break;
+		case 3:
+			cpu.setE(data);
+			break;
+		case 4:
+			cpu.setH(data);
+			break;
+		case 5:
+			cpu.setL(data);
+			break;
+		case HL_OPERAND:
+			gameboy.write(HL_ADDR, data);
+			break;
+		}
+	}
+	
+	private final int getOperand(GameBoy gameboy, int operand)
+	{
+		CPU cpu = gameboy.getCPU();
+		
+		switch (operand) {
+		case 0:
+			return cpu.getB();
+		case 1:
+			return cpu.getC();
+		case 2:
+			return cpu.getD();
+		case 3:
+			return cpu.getE();
+		case 4:
+			return cpu.getH();
+		case 5:
+			return cpu.getL();
+		case HL_OPERAND:
+			return gameboy.read(HL_ADDR);
+		}
+		
+		return cpu.getA();
+	}
+	
+	private final int execute(GameBoy gameboy, boolean tableALU, int a, int f)
+	{
+		CPU cpu = gameboy.getCPU();
+		
+		cpu.setTableALU(tableALU);
+		cpu.setA(a);
+		cpu.setF(f);
+		cpu.setPC(CODE_ADDR);
+		
+		// one tick over the debt runs exactly one instruction
+		cpu.setCycles(0);
+		cpu.emulate(1);
+		
+		return cpu.getAF();
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Fork Tests
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import gameboy.platform.headless.Joypad;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class ForkTest {
+	/*
+	 * Counts C000 up forever and copies it to FF80
+	 */
+	private static final int[] COUNTER = {
+		0x21, 0x00, 0xC0,			// LD HL,C000
+		0x34,						// INC (HL)
+		0x7E,						// LD A,(HL)
+		0xE0, 0x80,					// LDH (FF80),A
+		0x18, 0xFA					// JR 0153
+	};
+	
+	private static final int TICKS = 10000;
+	
+	@Test
+	public void childWritesStayInTheChild()
+	{
+		GameBoy parent = start();
+		byte[] state = saveState(parent);
+		
+		GameBoy child = parent.fork(new Joypad());
+		child.emulate(TICKS);
+		
+		assertTrue(Arrays.equals(state, saveState(parent)));
+		assertTrue(child.read(0xC000) != parent.read(0xC000));
+	}
+	
+	@Test
+	public void parentWritesStayInTheParent()
+	{
+		GameBoy parent = start();
+		GameBoy child = parent.fork(new Joypad());
+		byte[] state = saveState(child);
+		
+		parent.emulate(TICKS);
+		
+		assertTrue(Arrays.equals(state, saveState(child)));
+		assertTrue(child.read(0xFF80) != parent.read(0xFF80));
+	}
+	
+	@Test
+	public void childRunsLikeALoadedState()
+	{
+		GameBoy parent = start();
+		GameBoy loaded = new TestMachine(COUNTER).getGameBoy();
+		loaded.loadState(ByteBuffer.wrap(saveState(parent)));
+		
+		GameBoy child = parent.fork(new Joypad()).fork(new Joypad());
+		child.emulate(TICKS);
+		loaded.emulate(TICKS);
+		
+		assertEquals(loaded.getStateHash(), child.getStateHash());
+	}
+	
+	private final GameBoy start()
+	{
+		GameBoy gameboy = new TestMachine(COUNTER).getGameBoy();
+		gameboy.emulate(TICKS);
+		
+		return gameboy;
+	}
+	
+	private final byte[] saveState(GameBoy gameboy)
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(gameboy.getStateSize());
+		gameboy.saveState(buffer);
+		
+		return buffer.array();
+	}
+}
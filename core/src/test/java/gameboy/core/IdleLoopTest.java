@@ -0,0 +1,151 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Idle Loop Tests
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import org.junit.Test;
+
+public class IdleLoopTest {
+	/*
+	 * With the LCD off, polls DIV until it reads 83, then stores TIMA (counting
+	 * every 16 ticks) to FF81 as the exit time and 01 to FF80
+	 */
+	private static final int[] DIV_POLL = {
+		0xF3,						// DI
+		0xAF,						// XOR A
+		0xE0, 0x40,					// LDH (LCDC),A
+		0x3E, 0x06,					// LD A,06
+		0xE0, 0x07,					// LDH (TAC),A
+		0xF0, 0x04,					// LDH A,(DIV)
+		0xFE, 0x83,					// CP 83
+		0x20, 0xFA,					// JR NZ,0158
+		0xF0, 0x05,					// LDH A,(TIMA)
+		0xE0, 0x81,					// LDH (FF81),A
+		0x3E, 0x01,					// LD A,01
+		0xE0, 0x80,					// LDH (FF80),A
+		0x18, 0xFE					// JR 0168
+	};
+	
+	/*
+	 * With the LCD off, polls TIMA (counting every 256 ticks, it never overflows here) until it reads 20
+	 */
+	private static final int[] TIMA_POLL = {
+		0xF3,						// DI
+		0xAF,						// XOR A
+		0xE0, 0x40,					// LDH (LCDC),A
+		0x3E, 0x04,					// LD A,04
+		0xE0, 0x07,					// LDH (TAC),A
+		0xF0, 0x05,					// LDH A,(TIMA)
+		0xFE, 0x20,					// CP 20
+		0x20, 0xFA,					// JR NZ,0158
+		0x3E, 0x01,					// LD A,01
+		0xE0, 0x80,					// LDH (FF80),A
+		0x18, 0xFE					// JR 0162
+	};
+	
+	/*
+	 * With the LCD off and the timer interrupting every 1024 ticks, polls FF90
+	 * (never set) while handlers that only touch the stack run between passes
+	 */
+	private static final int[] TIMER_IRQ_POLL = {
+		0xF3,						// DI
+		0xAF,						// XOR A
+		0xE0, 0x40,					// LDH (LCDC),A
+		0xE0, 0x0F,					// LDH (IF),A
+		0x3E, 0xF0,					// LD A,F0
+		0xE0, 0x06,					// LDH (TMA),A
+		0x3E, 0x07,					// LD A,07
+		0xE0, 0x07,					// LDH (TAC),A
+		0x3E, 0x04,					// LD A,04
+		0xE0, 0xFF,					// LDH (IE),A
+		0xFB,						// EI
+		0xF0, 0x90,					// LDH A,(FF90)
+		0xA7,						// AND A
+		0x28, 0xFB,					// JR Z,0163
+		0x18, 0xFE					// JR 0168
+	};
+	
+	private static final int[] RETI = {
+		0xD9						// RETI
+	};
+	
+	private static final int[] PUSH_POP_RETI = {
+		0xF5,						// PUSH AF
+		0xF1,						// POP AF
+		0xD9						// RETI
+	};
+	
+	@Test
+	public void divPollEndsWithFrameSlices()
+	{
+		assertEquals(1, run(DIV_POLL, Video.FRAME_TICKS).read(0xFF80));
+	}
+	
+	@Test
+	public void divPollEndsWithSingleTicks()
+	{
+		assertEquals(1, run(DIV_POLL, 1).read(0xFF80));
+	}
+	
+	@Test
+	public void divPollEndsAtTheSameTime()
+	{
+		assertEquals(run(DIV_POLL, 1).read(0xFF81), run(DIV_POLL, Video.FRAME_TICKS).read(0xFF81));
+	}
+	
+	@Test
+	public void timaPollEndsWithFrameSlices()
+	{
+		assertEquals(1, run(TIMA_POLL, Video.FRAME_TICKS).read(0xFF80));
+	}
+	
+	@Test
+	public void interruptedPollIsSliceIndependent() throws IOException
+	{
+		assertArrayEquals(TestMachine.saveState(run(TIMER_IRQ_POLL, RETI, 1)), TestMachine.saveState(run(TIMER_IRQ_POLL, RETI, Video.FRAME_TICKS)));
+	}
+	
+	@Test
+	public void interruptedPollWithStackIsSliceIndependent() throws IOException
+	{
+		assertArrayEquals(TestMachine.saveState(run(TIMER_IRQ_POLL, PUSH_POP_RETI, 1)), TestMachine.saveState(run(TIMER_IRQ_POLL, PUSH_POP_RETI, Video.FRAME_TICKS)));
+	}
+	
+	private final GameBoy run(int[] code, int slice)
+	{
+		return run(code, new int[0], slice);
+	}
+	
+	private final GameBoy run(int[] code, int[] handler, int slice)
+	{
+		GameBoy gameboy = new TestMachine(code, 0x0050, handler).getGameBoy();
+		
+		// DIV reaches 83 after about 8400 ticks and TIMA 20 after 8192, well inside two frames
+		while (gameboy.getTime() < 2 * Video.FRAME_TICKS)
+			gameboy.emulate(slice);
+		
+		return gameboy;
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Run-Ahead Tests
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class RunAheadTest {
+	/*
+	 * Spins with the LCD on, a frame ends at every V-Blank
+	 */
+	private static final int[] SPIN = {
+		0x18, 0xFE					// JR 0150
+	};
+	
+	@Test
+	public void hiddenFramesAreNotCounted()
+	{
+		GameBoy gameboy = new TestMachine(SPIN).getGameBoy();
+		
+		gameboy.setRunAhead(GameBoy.MAX_RUN_AHEAD);
+		gameboy.runFrames(10);
+		
+		assertEquals(10, gameboy.getFrameCount());
+	}
+	
+	@Test
+	public void framesAreCountedWithSlices()
+	{
+		assertEquals(run(0).getFrameCount(), run(GameBoy.MAX_RUN_AHEAD).getFrameCount());
+	}
+	
+	private final GameBoy run(int runAhead)
+	{
+		GameBoy gameboy = new TestMachine(SPIN).getGameBoy();
+		
+		gameboy.setRunAhead(runAhead);
+		
+		while (gameboy.getTime() < 10 * Video.FRAME_TICKS)
+			gameboy.emulate(Video.FRAME_TICKS / 4);
+		
+		return gameboy;
+	}
+}
@@ -0,0 +1,114 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Save State File Tests
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+public class StateFileTest {
+	/*
+	 * Runs TIMA at 4 ticks a step and counts C000 up forever
+	 */
+	private static final int[] COUNTER = {
+		0x3E, 0x05,					// LD A,05
+		0xE0, 0x07,					// LDH (TAC),A
+		0x21, 0x00, 0xC0,			// LD HL,C000
+		0x34,						// INC (HL)
+		0x18, 0xFD					// JR 0157
+	};
+	
+	@Test
+	public void loadedMachineMatchesTheSaved() throws IOException
+	{
+		GameBoy saved = new TestMachine(COUNTER).getGameBoy();
+		saved.emulate(12345);
+		
+		GameBoy loaded = new TestMachine(COUNTER).getGameBoy();
+		TestMachine.loadState(loaded, TestMachine.saveState(saved));
+		
+		assertArrayEquals(TestMachine.saveState(saved), TestMachine.saveState(loaded));
+		
+		// the saved machine still has the CPU's overshoot ahead of it, the loaded one starts past it
+		long time = saved.getTime() + Video.FRAME_TICKS;
+		
+		saved.emulate((int) (time - saved.getTime()));
+		loaded.emulate((int) (time - loaded.getTime()));
+		
+		assertArrayEquals(TestMachine.saveState(saved), TestMachine.saveState(loaded));
+	}
+	
+	@Test
+	public void savingLeavesTheMachineAlone() throws IOException
+	{
+		GameBoy saving = new TestMachine(COUNTER).getGameBoy();
+		saving.emulate(12345);
+		
+		GameBoy running = new TestMachine(COUNTER).getGameBoy();
+		running.emulate(12345);
+		
+		TestMachine.saveState(saving);
+		
+		assertEquals(running.getTime(), saving.getTime());
+		assertEquals(running.getStateHash(), saving.getStateHash());
+		
+		saving.emulate(Video.FRAME_TICKS);
+		running.emulate(Video.FRAME_TICKS);
+		
+		assertEquals(running.getStateHash(), saving.getStateHash());
+	}
+	
+	@Test
+	public void newerChunkIsRejectedUntouched() throws IOException
+	{
+		GameBoy saved = new TestMachine(COUNTER).getGameBoy();
+		saved.emulate(12345);
+		
+		GameBoy loaded = new TestMachine(COUNTER).getGameBoy();
+		loaded.emulate(54321);
+		
+		long hash = loaded.getStateHash();
+		
+		// the CPU chunk claims a version from the future, its payload is untouched
+		byte[] data = TestMachine.saveState(saved);
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		int offset = 16;
+		
+		while (buffer.getInt(offset) != StateFile.CPU)
+			offset += 20 + buffer.getInt(offset + 12);
+		
+		buffer.putInt(offset + 4, CPU.REGISTERS_VERSION + 1);
+		
+		try {
+			TestMachine.loadState(loaded, data);
+			fail();
+		}
+		catch (RuntimeException exception) {
+		}
+		
+		assertEquals(hash, loaded.getStateHash());
+	}
+}
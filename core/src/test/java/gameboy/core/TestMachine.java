@@ -0,0 +1,172 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Test Machine
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.core;
+
+import gameboy.core.cartridge.CartridgeFactory;
+import gameboy.core.driver.StoreDriver;
+import gameboy.platform.headless.Clock;
+import gameboy.platform.headless.Joypad;
+import gameboy.platform.headless.Sound;
+import gameboy.platform.headless.Video;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/*
+ * A machine running a synthetic 32KB cartridge whose code starts at 0150,
+ * optionally with an interrupt handler at its vector
+ */
+class TestMachine implements StoreDriver {
+	static final int CODE_ADDR = 0x0150;
+	
+	private byte[] rom;
+	
+	private GameBoy gameboy;
+	
+	TestMachine(int[] code)
+	{
+		this(code, 0x0000, new int[0]);
+	}
+	
+	TestMachine(int[] code, int vector, int[] handler)
+	{
+		rom = new byte[0x8000];
+		
+		for (int index = 0; index < handler.length; index++)
+			rom[vector + index] = (byte) handler[index];
+		
+		// entry point: NOP; JP 0150
+		rom[0x0100] = (byte) 0x00;
+		rom[0x0101] = (byte) 0xC3;
+		rom[0x0102] = (byte) (CODE_ADDR & 0xFF);
+		rom[0x0103] = (byte) (CODE_ADDR >> 8);
+		
+		for (int index = 0; index < code.length; index++)
+			rom[CODE_ADDR + index] = (byte) code[index];
+		
+		rom[0x0147] = (byte) CartridgeFactory.TYPE_ROM_ONLY;
+		
+		int checksum = 0xE7;
+		
+		for (int address = 0x0134; address <= 0x014C; address++)
+			checksum = (checksum - (rom[address] & 0xFF)) & 0xFF;
+		
+		rom[0x014D] = (byte) checksum;
+		
+		gameboy = new GameBoy(new Video(160, 144), new Sound(44100, 2, 8), new Joypad(), this, new Clock(0));
+		gameboy.load("test");
+		gameboy.reset();
+	}
+	
+	final GameBoy getGameBoy()
+	{
+		return gameboy;
+	}
+	
+	/*
+	 * Save State Files (the architectural state, free of how the time was sliced)
+	 */
+	static byte[] saveState(GameBoy gameboy) throws IOException
+	{
+		File file = File.createTempFile("state", ".gbs");
+		
+		try {
+			RandomAccessFile output = new RandomAccessFile(file, "rw");
+			gameboy.saveState(output.getChannel());
+			output.close();
+			
+			byte[] data = new byte[(int) file.length()];
+			
+			RandomAccessFile input = new RandomAccessFile(file, "r");
+			input.readFully(data);
+			input.close();
+			
+			return data;
+		}
+		finally {
+			file.delete();
+		}
+	}
+	
+	static void loadState(GameBoy gameboy, byte[] data) throws IOException
+	{
+		File file = File.createTempFile("state", ".gbs");
+		
+		try {
+			RandomAccessFile output = new RandomAccessFile(file, "rw");
+			output.write(data);
+			output.close();
+			
+			RandomAccessFile input = new RandomAccessFile(file, "r");
+			
+			try {
+				gameboy.loadState(input.getChannel());
+			}
+			finally {
+				input.close();
+			}
+		}
+		finally {
+			file.delete();
+		}
+	}
+	
+	/*
+	 * In-Memory Store
+	 */
+	public boolean hasCartridge(String cartridgeName)
+	{
+		return true;
+	}
+
+	public int getCartridgeSize(String cartridgeName)
+	{
+		return rom.length;
+	}
+
+	public void readCartridge(String cartridgeName, byte[] buffer)
+	{
+		System.arraycopy(rom, 0, buffer, 0, buffer.length);
+	}
+
+	public boolean hasBattery(String cartridgeName)
+	{
+		return false;
+	}
+
+	public int getBatterySize(String cartridgeName)
+	{
+		return 0;
+	}
+
+	public void readBattery(String cartridgeName, byte[] buffer)
+	{
+	}
+
+	public void writeBattery(String cartridgeName, byte[] buffer)
+	{
+	}
+
+	public void removeBattery(String cartridgeName)
+	{
+	}
+}
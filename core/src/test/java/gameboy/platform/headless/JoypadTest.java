@@ -0,0 +1,55 @@
+/**
+ * Mario GameBoy (TM) Emulator
+ * 
+ * Headless Joypad Tests
+ *
+ * Copyright (C) 2006  Carlos Hasan.  All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gameboy.platform.headless;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import gameboy.core.driver.JoypadDriver;
+import org.junit.Test;
+
+public class JoypadTest {
+	@Test
+	public void sameButtonsAreNotRaised()
+	{
+		Joypad joypad = new Joypad();
+		
+		// bits above the four buttons are ignored
+		joypad.setButtons(JoypadDriver.BUTTON_A | 0xF0);
+		assertTrue(joypad.isRaised());
+		
+		joypad.setButtons(JoypadDriver.BUTTON_A | 0xF0);
+		assertFalse(joypad.isRaised());
+	}
+	
+	@Test
+	public void sameDirectionsAreNotRaised()
+	{
+		Joypad joypad = new Joypad();
+		
+		joypad.setDirections(JoypadDriver.BUTTON_UP | 0x30);
+		assertTrue(joypad.isRaised());
+		
+		joypad.setDirections(JoypadDriver.BUTTON_UP | 0x30);
+		assertFalse(joypad.isRaised());
+	}
+}